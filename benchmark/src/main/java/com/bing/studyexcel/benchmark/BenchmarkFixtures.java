@@ -0,0 +1,82 @@
+package com.bing.studyexcel.benchmark;
+
+import com.bing.studyexcel.pojo.User;
+import com.bing.studyexcel.util.ExcelUtil;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @Description: 基准测试用的数据及Excel文件，文件按格式、行数、实体类型生成到临时目录并复用
+ */
+final class BenchmarkFixtures {
+
+    static final String ENTITY_USER = "user";
+    static final String ENTITY_WIDE = "wide";
+
+    private static final File FIXTURE_DIR = new File(System.getProperty("java.io.tmpdir"), "study-excel-benchmark");
+
+    private BenchmarkFixtures() {
+    }
+
+    static Class<?> entityClass(String entity) {
+        return ENTITY_WIDE.equals(entity) ? WideEntity.class : User.class;
+    }
+
+    /**
+     * 生成测试数据
+     *
+     * @param entity 实体类型
+     * @param rows   行数
+     * @return 数据
+     */
+    static List<Object> data(String entity, int rows) {
+        List<Object> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(ENTITY_WIDE.equals(entity) ? WideEntity.of(i) : user(i));
+        }
+        return data;
+    }
+
+    private static User user(int row) {
+        User user = new User();
+        user.setUserName("用户" + row);
+        user.setAge(18 + row % 50);
+        user.setBirthday(new Date(631123200000L + row * 86400000L));
+        user.setMoney(row * 10.5);
+        return user;
+    }
+
+    /**
+     * 获取测试文件，不存在时生成（单sheet）
+     *
+     * @param format xls/xlsx
+     * @param entity 实体类型
+     * @param rows   行数
+     * @return 文件
+     */
+    static File file(String format, String entity, int rows) throws Exception {
+        File file = new File(FIXTURE_DIR, entity + "-" + rows + "." + format);
+        if (file.exists()) {
+            return file;
+        }
+        if (!FIXTURE_DIR.exists() && !FIXTURE_DIR.mkdirs()) {
+            throw new IOException("无法创建目录：" + FIXTURE_DIR);
+        }
+        File tempFile = new File(FIXTURE_DIR, file.getName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            if (ExcelUtil.EXCEL_XLSX.equals(format)) {
+                ExcelUtil.exportExcelStreaming("data", rows, data(entity, rows), entityClass(entity), out, null, false);
+            } else {
+                ExcelUtil.exportExcel(format, "data", rows, data(entity, rows), entityClass(entity), out);
+            }
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("无法生成文件：" + file);
+        }
+        System.out.println("fixture " + file.getName() + ": " + file.length() / 1024 + " KB");
+        return file;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bing.studyexcel.benchmark;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 单元格转换基准测试：原先toString()后再解析字符串的方式与按原生类型读取的方式对比（User表的4列）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CellConversionBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private Sheet sheet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File file = BenchmarkFixtures.file("xlsx", BenchmarkFixtures.ENTITY_USER, rows);
+        sheet = new XSSFWorkbook(file.getPath()).getSheetAt(0);
+    }
+
+    @Benchmark
+    public void legacyToString(Blackhole blackhole) {
+        for (Row row : sheet) {
+            if (row.getRowNum() == 0) {
+                continue;
+            }
+            blackhole.consume(String.valueOf(row.getCell(0)));
+            String age = row.getCell(1).toString();
+            if (age.contains(".")) {
+                age = String.valueOf(new Double(age).intValue());
+            }
+            blackhole.consume(Integer.parseInt(age));
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            blackhole.consume(format.parse(row.getCell(2).toString(), new ParsePosition(0)));
+            blackhole.consume(Double.valueOf(row.getCell(3).toString()));
+        }
+    }
+
+    @Benchmark
+    public void nativeRead(Blackhole blackhole) {
+        for (Row row : sheet) {
+            if (row.getRowNum() == 0) {
+                continue;
+            }
+            blackhole.consume(row.getCell(0).getStringCellValue());
+            Cell age = row.getCell(1);
+            blackhole.consume((int) age.getNumericCellValue());
+            blackhole.consume(row.getCell(2).getDateCellValue());
+            blackhole.consume(row.getCell(3).getNumericCellValue());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.bing.studyexcel.benchmark;
+
+import com.bing.studyexcel.util.ExcelUtil;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 导出基准测试：xls、xlsx内存工作簿导出及xlsx流式导出，返回写出的字节数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ExportBenchmark {
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    @Param({BenchmarkFixtures.ENTITY_USER, BenchmarkFixtures.ENTITY_WIDE})
+    private String entity;
+
+    private List<Object> data;
+    private Class<?> entityClass;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkFixtures.data(entity, rows);
+        entityClass = BenchmarkFixtures.entityClass(entity);
+    }
+
+    @Benchmark
+    public long exportXls() throws Exception {
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        ExcelUtil.exportExcel(ExcelUtil.EXCEL_XLS, "data", 60000, data, entityClass, out);
+        return out.getByteCount();
+    }
+
+    @Benchmark
+    public long exportXlsx() throws Exception {
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        ExcelUtil.exportExcel(ExcelUtil.EXCEL_XLSX, "data", null, data, entityClass, out);
+        return out.getByteCount();
+    }
+
+    @Benchmark
+    public long exportXlsxStreaming() throws Exception {
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        ExcelUtil.exportExcelStreaming("data", null, data, entityClass, out, null, false);
+        return out.getByteCount();
+    }
+}
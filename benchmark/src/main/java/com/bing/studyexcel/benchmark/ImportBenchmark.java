@@ -0,0 +1,59 @@
+package com.bing.studyexcel.benchmark;
+
+import com.bing.studyexcel.util.ExcelUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 导入基准测试：整表导入、流式导入、分批回调导入、流水线导入
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ImportBenchmark {
+
+    @Param({"xls", "xlsx"})
+    private String format;
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    @Param({BenchmarkFixtures.ENTITY_USER, BenchmarkFixtures.ENTITY_WIDE})
+    private String entity;
+
+    private MultipartFile file;
+    private Class<?> entityClass;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = new FileMultipartFile(BenchmarkFixtures.file(format, entity, rows));
+        entityClass = BenchmarkFixtures.entityClass(entity);
+    }
+
+    @Benchmark
+    public List<?> importExcel() throws Exception {
+        return ExcelUtil.importExcel(file, entityClass);
+    }
+
+    @Benchmark
+    public List<?> importExcelStreaming() throws Exception {
+        return ExcelUtil.importExcelStreaming(file, entityClass);
+    }
+
+    @Benchmark
+    public int importExcelBatched(Blackhole blackhole) throws Exception {
+        return ExcelUtil.importExcel(file, entityClass, 1000, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<?> importExcelPipelined() throws Exception {
+        return ExcelUtil.importExcelPipelined(file, entityClass);
+    }
+}
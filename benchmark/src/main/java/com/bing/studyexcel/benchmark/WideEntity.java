@@ -0,0 +1,175 @@
+package com.bing.studyexcel.benchmark;
+
+import com.bing.studyexcel.util.Excel;
+
+import java.util.Date;
+
+/**
+ * @Description: 50列的宽表实体，覆盖文本、整数、小数、日期、长整数、布尔类型
+ */
+public class WideEntity {
+
+    private static final long BASE_TIME = 1572537600000L;
+
+    @Excel(value = "列1", order = 1, required = true)
+    private String col1;
+    @Excel(value = "列2", order = 2)
+    private String col2;
+    @Excel(value = "列3", order = 3)
+    private String col3;
+    @Excel(value = "列4", order = 4)
+    private String col4;
+    @Excel(value = "列5", order = 5)
+    private String col5;
+    @Excel(value = "列6", order = 6)
+    private String col6;
+    @Excel(value = "列7", order = 7)
+    private String col7;
+    @Excel(value = "列8", order = 8)
+    private String col8;
+    @Excel(value = "列9", order = 9)
+    private String col9;
+    @Excel(value = "列10", order = 10)
+    private String col10;
+    @Excel(value = "列11", order = 11)
+    private Integer col11;
+    @Excel(value = "列12", order = 12)
+    private Integer col12;
+    @Excel(value = "列13", order = 13)
+    private Integer col13;
+    @Excel(value = "列14", order = 14)
+    private Integer col14;
+    @Excel(value = "列15", order = 15)
+    private Integer col15;
+    @Excel(value = "列16", order = 16)
+    private Integer col16;
+    @Excel(value = "列17", order = 17)
+    private Integer col17;
+    @Excel(value = "列18", order = 18)
+    private Integer col18;
+    @Excel(value = "列19", order = 19)
+    private Integer col19;
+    @Excel(value = "列20", order = 20)
+    private Integer col20;
+    @Excel(value = "列21", order = 21)
+    private Double col21;
+    @Excel(value = "列22", order = 22)
+    private Double col22;
+    @Excel(value = "列23", order = 23)
+    private Double col23;
+    @Excel(value = "列24", order = 24)
+    private Double col24;
+    @Excel(value = "列25", order = 25)
+    private Double col25;
+    @Excel(value = "列26", order = 26)
+    private Double col26;
+    @Excel(value = "列27", order = 27)
+    private Double col27;
+    @Excel(value = "列28", order = 28)
+    private Double col28;
+    @Excel(value = "列29", order = 29)
+    private Double col29;
+    @Excel(value = "列30", order = 30)
+    private Double col30;
+    @Excel(value = "列31", order = 31)
+    private Date col31;
+    @Excel(value = "列32", order = 32)
+    private Date col32;
+    @Excel(value = "列33", order = 33)
+    private Date col33;
+    @Excel(value = "列34", order = 34)
+    private Date col34;
+    @Excel(value = "列35", order = 35)
+    private Date col35;
+    @Excel(value = "列36", order = 36)
+    private Date col36;
+    @Excel(value = "列37", order = 37)
+    private Date col37;
+    @Excel(value = "列38", order = 38)
+    private Date col38;
+    @Excel(value = "列39", order = 39)
+    private Date col39;
+    @Excel(value = "列40", order = 40)
+    private Date col40;
+    @Excel(value = "列41", order = 41)
+    private Long col41;
+    @Excel(value = "列42", order = 42)
+    private Long col42;
+    @Excel(value = "列43", order = 43)
+    private Long col43;
+    @Excel(value = "列44", order = 44)
+    private Long col44;
+    @Excel(value = "列45", order = 45)
+    private Long col45;
+    @Excel(value = "列46", order = 46)
+    private Boolean col46;
+    @Excel(value = "列47", order = 47)
+    private Boolean col47;
+    @Excel(value = "列48", order = 48)
+    private Boolean col48;
+    @Excel(value = "列49", order = 49)
+    private Boolean col49;
+    @Excel(value = "列50", order = 50)
+    private Boolean col50;
+
+    /**
+     * 生成第row行的测试数据
+     *
+     * @param row 行号
+     * @return 实体
+     */
+    static WideEntity of(int row) {
+        WideEntity entity = new WideEntity();
+        entity.col1 = "文本" + row + "-" + 1;
+        entity.col2 = "文本" + row + "-" + 2;
+        entity.col3 = "文本" + row + "-" + 3;
+        entity.col4 = "文本" + row + "-" + 4;
+        entity.col5 = "文本" + row + "-" + 5;
+        entity.col6 = "文本" + row + "-" + 6;
+        entity.col7 = "文本" + row + "-" + 7;
+        entity.col8 = "文本" + row + "-" + 8;
+        entity.col9 = "文本" + row + "-" + 9;
+        entity.col10 = "文本" + row + "-" + 10;
+        entity.col11 = row + 11;
+        entity.col12 = row + 12;
+        entity.col13 = row + 13;
+        entity.col14 = row + 14;
+        entity.col15 = row + 15;
+        entity.col16 = row + 16;
+        entity.col17 = row + 17;
+        entity.col18 = row + 18;
+        entity.col19 = row + 19;
+        entity.col20 = row + 20;
+        entity.col21 = row * 1.5 + 21;
+        entity.col22 = row * 1.5 + 22;
+        entity.col23 = row * 1.5 + 23;
+        entity.col24 = row * 1.5 + 24;
+        entity.col25 = row * 1.5 + 25;
+        entity.col26 = row * 1.5 + 26;
+        entity.col27 = row * 1.5 + 27;
+        entity.col28 = row * 1.5 + 28;
+        entity.col29 = row * 1.5 + 29;
+        entity.col30 = row * 1.5 + 30;
+        entity.col31 = new Date(BASE_TIME + row * 60000L);
+        entity.col32 = new Date(BASE_TIME + row * 60000L);
+        entity.col33 = new Date(BASE_TIME + row * 60000L);
+        entity.col34 = new Date(BASE_TIME + row * 60000L);
+        entity.col35 = new Date(BASE_TIME + row * 60000L);
+        entity.col36 = new Date(BASE_TIME + row * 60000L);
+        entity.col37 = new Date(BASE_TIME + row * 60000L);
+        entity.col38 = new Date(BASE_TIME + row * 60000L);
+        entity.col39 = new Date(BASE_TIME + row * 60000L);
+        entity.col40 = new Date(BASE_TIME + row * 60000L);
+        entity.col41 = row * 1000L + 41;
+        entity.col42 = row * 1000L + 42;
+        entity.col43 = row * 1000L + 43;
+        entity.col44 = row * 1000L + 44;
+        entity.col45 = row * 1000L + 45;
+        entity.col46 = row % 2 == 0;
+        entity.col47 = row % 2 == 0;
+        entity.col48 = row % 2 == 0;
+        entity.col49 = row % 2 == 0;
+        entity.col50 = row % 2 == 0;
+        return entity;
+    }
+}
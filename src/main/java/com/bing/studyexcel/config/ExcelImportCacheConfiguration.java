@@ -0,0 +1,27 @@
+package com.bing.studyexcel.config;
+
+import com.bing.studyexcel.util.ExcelImportCache;
+import com.bing.studyexcel.util.ExcelUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 注册导入结果缓存，有效期内重复上传的相同文件不再重新解析，excel.import.cache.enabled=true时开启
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "excel.import.cache", name = "enabled", havingValue = "true", matchIfMissing = false)
+public class ExcelImportCacheConfiguration {
+
+    @Bean
+    public ExcelImportCache excelImportCache(@Value("${excel.import.cache.max-entries:32}") int maxEntries,
+                                             @Value("${excel.import.cache.max-rows:500000}") long maxRows,
+                                             @Value("${excel.import.cache.ttl-minutes:10}") long ttlMinutes) {
+        ExcelImportCache cache = new ExcelImportCache(maxEntries, maxRows, TimeUnit.MINUTES.toMillis(ttlMinutes));
+        ExcelUtil.setImportCache(cache);
+        return cache;
+    }
+}
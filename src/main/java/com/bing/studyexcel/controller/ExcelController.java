@@ -1,16 +1,42 @@
 package com.bing.studyexcel.controller;
 
 import com.bing.studyexcel.pojo.User;
+import com.bing.studyexcel.service.ExcelAdmissionService;
+import com.bing.studyexcel.service.ExcelBusyException;
+import com.bing.studyexcel.service.ExcelExportExpiredException;
+import com.bing.studyexcel.service.ExcelExportJob;
+import com.bing.studyexcel.service.ExcelExportService;
+import com.bing.studyexcel.util.ExcelImportResult;
+import com.bing.studyexcel.util.ExcelTemplate;
 import com.bing.studyexcel.util.ExcelUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * @Description: TODO
@@ -20,13 +46,38 @@ import java.util.List;
 @Controller
 public class ExcelController {
 
+    /**
+     * 示例导出接口允许的最大行数
+     */
+    private static final int MAX_EXPORT_ROWS = 1000000;
+
+    @Autowired
+    private ExcelExportService excelExportService;
+    @Autowired
+    private ExcelAdmissionService excelAdmissionService;
+    /**
+     * 员工表导出模板，第一次使用时解析
+     */
+    private volatile ExcelTemplate userTemplate;
+
     @ResponseBody
     @RequestMapping("/import_excel")
     public String importExcel(MultipartFile file) throws Exception {
+        //用户模型解析，整个工作簿在内存中；解析前经过准入控制，缓存命中时不占用内存预算
         List<User> userList = ExcelUtil.importExcel(file, User.class);
         return userList.toString();
     }
 
+    /**
+     * 校验导入：返回正确的数据及有误数据行的错误，最多返回maxErrors个错误
+     */
+    @ResponseBody
+    @RequestMapping("/import_excel_validated")
+    public ExcelImportResult<User> importExcelValidated(MultipartFile file, @RequestParam(defaultValue = "100") int maxErrors)
+            throws Exception {
+        return ExcelUtil.importExcelValidated(file, User.class, maxErrors);
+    }
+
     @ResponseBody
     @RequestMapping("/export_excel")
     public void exportExcel(HttpServletResponse response) throws Exception {
@@ -46,10 +97,184 @@ public class ExcelController {
         userList.add(user2);
 
         String baseName = "员工表";
-        String extension = ExcelUtil.EXCEL_XLS;
+        //数据超过xls单sheet行数时改为xlsx
+        String extension = ExcelUtil.resolveFileType(ExcelUtil.EXCEL_XLS, userList.size());
 
-        response.setContentType("application/vnd.ms-excel;charset=utf-8");
+        response.setContentType(ExcelUtil.EXCEL_XLS.equals(extension) ? "application/vnd.ms-excel;charset=utf-8"
+                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.addHeader("Content-Disposition", "attachment; filename=" + new String(baseName.getBytes("gb2312"), "iso8859-1") + "." + extension);
-        ExcelUtil.exportExcel(ExcelUtil.EXCEL_XLS,"员工表",null,userList,User.class,response.getOutputStream());
+        long estimated = excelAdmissionService.estimateExport(extension, userList.size(), User.class);
+        excelAdmissionService.call(estimated, () -> ExcelUtil.exportExcelAuto(ExcelUtil.EXCEL_XLS,"员工表",null,userList,User.class,response.getOutputStream()));
+    }
+
+    /**
+     * 导入导出准入控制的状态：正在执行的任务数、排队数及内存预算的占用
+     */
+    @ResponseBody
+    @RequestMapping("/excel_admission_status")
+    public Map<String, Integer> excelAdmissionStatus() {
+        Map<String, Integer> status = new LinkedHashMap<>();
+        status.put("running", excelAdmissionService.getRunning());
+        status.put("waiting", excelAdmissionService.getWaiting());
+        status.put("usedMb", excelAdmissionService.getUsedMb());
+        status.put("budgetMb", excelAdmissionService.getBudgetMb());
+        return status;
+    }
+
+    /**
+     * 内存预算不足且排队已满或超时：返回429及建议的重试间隔
+     */
+    @ExceptionHandler(ExcelBusyException.class)
+    public ResponseEntity<String> handleBusy(ExcelBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * 导出任务不存在、已过期或文件已被清理：返回404
+     */
+    @ExceptionHandler(ExcelExportExpiredException.class)
+    public ResponseEntity<String> handleExpired(ExcelExportExpiredException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    /**
+     * 提交异步导出任务，立即返回任务编号，导出在后台线程中进行
+     */
+    @ResponseBody
+    @RequestMapping("/export_excel_async")
+    public ExcelExportJob exportExcelAsync(@RequestParam(defaultValue = "100000") int rows) throws Exception {
+        checkRows(rows);
+        return excelExportService.submit("员工表", User.class, rows, () -> sampleUsers(rows).iterator());
+    }
+
+    /**
+     * 查询导出任务的状态及进度
+     */
+    @ResponseBody
+    @RequestMapping("/export_excel_status")
+    public ExcelExportJob exportExcelStatus(String jobId) throws Exception {
+        ExcelExportJob job = excelExportService.getJob(jobId);
+        if (job == null) {
+            throw new ExcelExportExpiredException("导出任务不存在或已过期");
+        }
+        return job;
+    }
+
+    /**
+     * 下载已完成的导出文件
+     */
+    @RequestMapping("/export_excel_download")
+    public void exportExcelDownload(String jobId, HttpServletResponse response) throws Exception {
+        ExcelExportJob job = exportExcelStatus(jobId);
+        if (job.getStatus() != ExcelExportJob.Status.FINISHED) {
+            throw new Exception("导出任务未完成");
+        }
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.addHeader("Content-Disposition", "attachment; filename=" + new String(job.getFileName().getBytes("gb2312"), "iso8859-1") + "." + ExcelUtil.EXCEL_XLSX);
+        excelExportService.transferTo(job, response::setContentLengthLong, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * 边生成边下载：在MVC异步线程中逐行写出xlsx，数据读取过程中客户端即开始接收文件
+     */
+    @RequestMapping("/export_excel_stream")
+    public ResponseEntity<StreamingResponseBody> exportExcelStream(@RequestParam(defaultValue = "100000") int rows,
+                                                                   HttpServletRequest request) throws Exception {
+        checkRows(rows);
+        String baseName = "员工表";
+        //写出过程中持有内存预算，写完（或失败）后归还；写出任务未执行时在异步请求结束时归还
+        ExcelAdmissionService.Permit permit = excelAdmissionService.acquire(
+                excelAdmissionService.estimateStreamingExport(rows, User.class));
+        releaseOnCompletion(request, permit);
+        StreamingResponseBody body = out -> {
+            try {
+                ExcelUtil.exportExcelDirect(baseName, null, sampleUsers(rows), User.class, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            } finally {
+                permit.close();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + new String(baseName.getBytes("gb2312"), "iso8859-1") + "." + ExcelUtil.EXCEL_XLSX)
+                .body(body);
+    }
+
+    /**
+     * 按模板导出：沿用模板的标题、表头、列宽及数据行样式，边生成边下载
+     */
+    @RequestMapping("/export_excel_template")
+    public ResponseEntity<StreamingResponseBody> exportExcelTemplate(@RequestParam(defaultValue = "100000") int rows,
+                                                                     HttpServletRequest request) throws Exception {
+        checkRows(rows);
+        String baseName = "员工表";
+        ExcelTemplate template = getUserTemplate();
+        //写出过程中持有内存预算，写完（或失败）后归还；写出任务未执行时在异步请求结束时归还
+        ExcelAdmissionService.Permit permit = excelAdmissionService.acquire(
+                excelAdmissionService.estimateStreamingExport(rows, User.class));
+        releaseOnCompletion(request, permit);
+        StreamingResponseBody body = out -> {
+            try {
+                ExcelUtil.exportExcelTemplate(template, sampleUsers(rows), User.class, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            } finally {
+                permit.close();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + new String(baseName.getBytes("gb2312"), "iso8859-1") + "." + ExcelUtil.EXCEL_XLSX)
+                .body(body);
+    }
+
+    /**
+     * 示例导出的员工数据，按需逐个生成
+     */
+    private static Stream<User> sampleUsers(int rows) {
+        return IntStream.range(0, rows).mapToObj(i -> {
+            User user = new User();
+            user.setUserName("员工" + i);
+            user.setAge(20 + i % 40);
+            user.setBirthday(new Date());
+            user.setMoney(i * 100D);
+            return user;
+        });
+    }
+
+    private static void checkRows(int rows) throws Exception {
+        if (rows < 0 || rows > MAX_EXPORT_ROWS) {
+            throw new Exception("导出行数须在0到" + MAX_EXPORT_ROWS + "之间");
+        }
+    }
+
+    /**
+     * 异步请求结束（写完、出错、超时、客户端断开或写出任务被拒绝）时归还内存预算，许可多次关闭只归还一次
+     */
+    private static void releaseOnCompletion(HttpServletRequest request, ExcelAdmissionService.Permit permit) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(permit, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                permit.close();
+            }
+        });
+    }
+
+    private ExcelTemplate getUserTemplate() throws Exception {
+        ExcelTemplate template = userTemplate;
+        if (template == null) {
+            try (InputStream in = getClass().getResourceAsStream("/excel/user_template.xlsx")) {
+                template = ExcelTemplate.read(in);
+            }
+            userTemplate = template;
+        }
+        return template;
     }
 }
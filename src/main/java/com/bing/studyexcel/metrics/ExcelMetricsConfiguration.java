@@ -0,0 +1,20 @@
+package com.bing.studyexcel.metrics;
+
+import com.bing.studyexcel.util.ExcelUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @Description: 将Micrometer监听器注册到ExcelUtil，指标通过actuator的/actuator/metrics查看
+ */
+@Configuration
+public class ExcelMetricsConfiguration {
+
+    @Bean
+    public MicrometerExcelMetricsListener excelMetricsListener(MeterRegistry registry) {
+        MicrometerExcelMetricsListener listener = new MicrometerExcelMetricsListener(registry);
+        ExcelUtil.setMetricsListener(listener);
+        return listener;
+    }
+}
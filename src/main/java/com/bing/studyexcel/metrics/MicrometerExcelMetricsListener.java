@@ -0,0 +1,89 @@
+package com.bing.studyexcel.metrics;
+
+import com.bing.studyexcel.util.ExcelMetricsListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 将导入导出指标记录到Micrometer：各阶段耗时为Timer，行数、字节数、错误数为Counter，
+ * 按实体类（entity）及文件类型（type）打标签，每秒行数由监控系统对excel.import.rows、excel.export.rows求速率得到
+ */
+public class MicrometerExcelMetricsListener implements ExcelMetricsListener {
+
+    private final MeterRegistry registry;
+
+    public MicrometerExcelMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void workbookOpened(String fileType, long bytes, long nanos) {
+        timer("excel.import.open", "type", fileType).record(nanos, TimeUnit.NANOSECONDS);
+        counter("excel.import.bytes", "type", fileType).increment(bytes);
+    }
+
+    @Override
+    public void headerValidated(Class<?> entityClass, long nanos) {
+        timer("excel.import.header", "entity", entityClass.getSimpleName()).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void rowsConverted(Class<?> entityClass, long rows, long nanos) {
+        timer("excel.import.convert", "entity", entityClass.getSimpleName()).record(nanos, TimeUnit.NANOSECONDS);
+        counter("excel.import.rows", "entity", entityClass.getSimpleName()).increment(rows);
+    }
+
+    @Override
+    public void rowErrors(Class<?> entityClass, long errors) {
+        counter("excel.import.errors", "entity", entityClass.getSimpleName()).increment(errors);
+    }
+
+    @Override
+    public void importFinished(Class<?> entityClass, long rows, long nanos, Throwable error) {
+        timer("excel.import", "entity", entityClass.getSimpleName(), "result", result(error))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void importCached(Class<?> entityClass, long rows) {
+        counter("excel.import.cache.hits", "entity", entityClass.getSimpleName()).increment();
+    }
+
+    @Override
+    public void exportRowsWritten(Class<?> entityClass, long rows, long nanos) {
+        timer("excel.export.write", "entity", entityClass.getSimpleName()).record(nanos, TimeUnit.NANOSECONDS);
+        counter("excel.export.rows", "entity", entityClass.getSimpleName()).increment(rows);
+    }
+
+    @Override
+    public void exportFlushed(String fileType, long bytes, long nanos) {
+        timer("excel.export.flush", "type", fileType).record(nanos, TimeUnit.NANOSECONDS);
+        counter("excel.export.bytes", "type", fileType).increment(bytes);
+    }
+
+    @Override
+    public void exportFinished(Class<?> entityClass, String fileType, long nanos, Throwable error) {
+        timer("excel.export", "entity", entityClass.getSimpleName(), "type", fileType, "result", result(error))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param error 异常
+     * @return 成功时为success，失败时为异常类名
+     */
+    private static String result(Throwable error) {
+        return error == null ? "success" : error.getClass().getSimpleName();
+    }
+
+    private Timer timer(String name, String... tags) {
+        //MeterRegistry按名称及标签缓存，重复获取返回同一个Timer
+        return Timer.builder(name).tags(tags).register(registry);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return Counter.builder(name).tags(tags).register(registry);
+    }
+}
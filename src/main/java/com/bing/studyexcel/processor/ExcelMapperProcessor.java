@@ -0,0 +1,531 @@
+package com.bing.studyexcel.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * @Description: @Excel注解处理器，编译期校验列名（不能为空、不能重复），并为每个实体类生成ExcelRowMapper实现，
+ * 生成的映射器与实体同包，类名为实体类名加ExcelMapper，通过构造方法及getter/setter（或非私有字段）读写，
+ * 无法生成时（如缺少无参构造方法、getter/setter，或字段类型不支持）给出提示，运行时使用反射。
+ * 映射器包含继承的@Excel字段，@ExcelNested嵌套对象的字段不在映射器中，运行时通过反射读写。
+ * 只声明支持@Excel、@ExcelNested，未使用这两个注解的编译不会运行本处理器
+ */
+@SupportedAnnotationTypes({ExcelMapperProcessor.EXCEL, ExcelMapperProcessor.EXCEL_NESTED})
+public class ExcelMapperProcessor extends AbstractProcessor {
+
+    static final String EXCEL = "com.bing.studyexcel.util.Excel";
+    static final String EXCEL_NESTED = "com.bing.studyexcel.util.ExcelNested";
+    private static final String UTIL_PACKAGE = "com.bing.studyexcel.util";
+    private static final String DEFAULT_CONVERTER = UTIL_PACKAGE + ".ExcelConverter";
+    private static final String MAPPER_SUFFIX = "ExcelMapper";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    /**
+     * 已处理的实体类，避免多轮处理时重复生成
+     */
+    private final Set<String> processed = new HashSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement excel = elements.getTypeElement(EXCEL);
+        if (excel == null) {
+            return false;
+        }
+        Set<TypeElement> entityTypes = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(excel)) {
+            if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement) {
+                entityTypes.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        //只继承父类@Excel字段的子类；只在本轮编译的源文件中使用了@Excel时处理，否则运行时使用反射
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addSubclasses(type, entityTypes);
+        }
+        for (TypeElement entityType : entityTypes) {
+            if (processed.add(entityType.getQualifiedName().toString())) {
+                processEntity(entityType);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 加入父类含@Excel字段的可实例化类（含成员类）
+     */
+    private void addSubclasses(TypeElement type, Set<TypeElement> entityTypes) {
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            for (TypeElement superType : hierarchy(type)) {
+                if (superType != type && ElementFilter.fieldsIn(superType.getEnclosedElements()).stream()
+                        .anyMatch(field -> findExcel(field) != null)) {
+                    entityTypes.add(type);
+                    break;
+                }
+            }
+        }
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addSubclasses(member, entityTypes);
+        }
+    }
+
+    /**
+     * @return 类及其父类（不含Object），父类在前，与运行时的字段顺序一致
+     */
+    private static List<TypeElement> hierarchy(TypeElement type) {
+        LinkedList<TypeElement> typeList = new LinkedList<>();
+        for (TypeElement t = type; t != null && !t.getQualifiedName().contentEquals("java.lang.Object"); ) {
+            typeList.addFirst(t);
+            TypeMirror superclass = t.getSuperclass();
+            t = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return typeList;
+    }
+
+    /**
+     * 校验一个实体类的@Excel注解并生成映射器
+     */
+    private void processEntity(TypeElement entityType) {
+        List<MappedField> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        boolean valid = true;
+        for (TypeElement declaringType : hierarchy(entityType)) {
+            for (VariableElement field : ElementFilter.fieldsIn(declaringType.getEnclosedElements())) {
+                AnnotationMirror mirror = findExcel(field);
+                if (mirror == null) {
+                    continue;
+                }
+                if (hasAnnotation(field, EXCEL_NESTED)) {
+                    messager.printMessage(Diagnostic.Kind.ERROR,
+                            "字段" + field.getSimpleName() + "不能同时标注@Excel和@ExcelNested", field, mirror);
+                    valid = false;
+                    continue;
+                }
+                MappedField mapped = new MappedField(field, mirror);
+                //父类字段的错误在处理父类时已提示，只在自身的字段上提示
+                boolean own = declaringType == entityType;
+                if (mapped.name.isEmpty()) {
+                    if (own) {
+                        messager.printMessage(Diagnostic.Kind.ERROR,
+                                "字段" + field.getSimpleName() + "的@Excel注解的value值不能为空或空串", field, mirror);
+                    }
+                    valid = false;
+                } else if (!names.add(mapped.name)) {
+                    String message = "@Excel注解的value值“" + mapped.name + "”存在重复现象";
+                    if (own) {
+                        messager.printMessage(Diagnostic.Kind.ERROR, message, field, mirror);
+                    } else {
+                        messager.printMessage(Diagnostic.Kind.ERROR, message, entityType);
+                    }
+                    valid = false;
+                }
+                fields.add(mapped);
+            }
+        }
+        if (!valid || fields.isEmpty()) {
+            return;
+        }
+        String reason = checkSupported(entityType, fields);
+        if (reason != null) {
+            messager.printMessage(Diagnostic.Kind.NOTE,
+                    entityType.getQualifiedName() + " 未生成ExcelRowMapper（" + reason + "），导入导出时使用反射", entityType);
+            return;
+        }
+        try {
+            writeMapper(entityType, fields);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    entityType.getQualifiedName() + " 的ExcelRowMapper生成失败：" + e.getMessage(), entityType);
+        }
+    }
+
+    private AnnotationMirror findExcel(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(EXCEL)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查实体类是否可以生成映射器
+     *
+     * @return 不能生成的原因，可以生成时返回null
+     */
+    private String checkSupported(TypeElement entityType, List<MappedField> fields) {
+        if (entityType.getKind() != ElementKind.CLASS || entityType.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "不是可实例化的类";
+        }
+        for (Element e = entityType; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)
+                    || e.getEnclosingElement() instanceof TypeElement && !e.getModifiers().contains(Modifier.STATIC)) {
+                return "类不可访问或为非静态内部类";
+            }
+        }
+        if (!hasNoArgConstructor(entityType)) {
+            return "缺少无参构造方法";
+        }
+        for (MappedField field : fields) {
+            String reason = field.resolve(entityType);
+            if (reason != null) {
+                return "字段" + field.element.getSimpleName() + reason;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement entityType) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(entityType.getEnclosedElements());
+        if (constructors.isEmpty()) {
+            //Lombok的@AllArgsConstructor会替换默认构造方法
+            return hasAnnotation(entityType, "lombok.NoArgsConstructor")
+                    || !hasAnnotation(entityType, "lombok.AllArgsConstructor");
+        }
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return hasAnnotation(entityType, "lombok.NoArgsConstructor");
+    }
+
+    private static boolean hasAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找类（含继承）中映射器可以调用的实例方法
+     */
+    private ExecutableElement findMethod(TypeElement type, String name, int parameterCount) {
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameterCount
+                    && isAccessible(method, type) && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 与实体同包的映射器能否访问该成员：public，或非private且声明在与实体相同的包中
+     */
+    private boolean isAccessible(Element member, TypeElement entityType) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE)
+                && elements.getPackageOf(member).equals(elements.getPackageOf(entityType));
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 生成映射器源文件
+     */
+    private void writeMapper(TypeElement entityType, List<MappedField> fields) throws IOException {
+        String packageName = elements.getPackageOf(entityType).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(entityType).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_') + MAPPER_SUFFIX;
+        String entity = entityType.getQualifiedName().toString();
+
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("/**\n")
+                .append(" * 由ExcelMapperProcessor根据").append(entityType.getSimpleName()).append("的@Excel注解生成，请勿修改\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements ").append(UTIL_PACKAGE).append(".ExcelRowMapper<").append(entity).append("> {\n\n");
+        code.append("    private static final String[] NAMES = {");
+        for (int i = 0; i < fields.size(); i++) {
+            code.append(i == 0 ? "" : ", ").append(elements.getConstantExpression(fields.get(i).name));
+        }
+        code.append("};\n");
+        for (int i = 0; i < fields.size(); i++) {
+            MappedField field = fields.get(i);
+            if (field.converter != null) {
+                code.append("    private static final ").append(field.converter).append(" CONVERTER_").append(i)
+                        .append(" = new ").append(field.converter).append("();\n");
+            }
+        }
+
+        code.append("\n    @Override\n    public String[] getNames() {\n        return NAMES.clone();\n    }\n");
+        code.append("\n    @Override\n    public ").append(entity).append(" newInstance() {\n        return new ")
+                .append(entity).append("();\n    }\n");
+
+        code.append("\n    @Override\n    public void setValue(").append(entity).append(" entity, int index, ")
+                .append(UTIL_PACKAGE).append(".ExcelCellValue cell) throws Exception {\n")
+                .append("        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            code.append("            case ").append(i).append(": {\n");
+            fields.get(i).appendSetter(code, i);
+            code.append("                break;\n            }\n");
+        }
+        code.append("            default:\n                throw new IndexOutOfBoundsException(String.valueOf(index));\n")
+                .append("        }\n    }\n");
+
+        code.append("\n    @Override\n    public Object getValue(").append(entity).append(" entity, int index) {\n")
+                .append("        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            code.append("            case ").append(i).append(":\n                return ")
+                    .append(fields.get(i).getExpression()).append(";\n");
+        }
+        code.append("            default:\n                throw new IndexOutOfBoundsException(String.valueOf(index));\n")
+                .append("        }\n    }\n");
+
+        code.append("\n    @Override\n    public double getDouble(").append(entity).append(" entity, int index) {\n")
+                .append("        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).isPrimitiveNumber()) {
+                code.append("            case ").append(i).append(":\n                return ")
+                        .append(fields.get(i).getExpression()).append(";\n");
+            }
+        }
+        code.append("            default:\n                throw new IllegalArgumentException(\"字段\" + index + \"不是基本数值类型\");\n")
+                .append("        }\n    }\n");
+        code.append("}\n");
+
+        String mapperName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(mapperName, entityType).openWriter()) {
+            writer.write(code.toString());
+        }
+    }
+
+    /**
+     * 被@Excel注解标注的字段
+     */
+    private final class MappedField {
+
+        private final VariableElement element;
+        private final TypeMirror type;
+        private final String name;
+        private final String format;
+        /**
+         * 自定义转换器的类名，未指定时为null
+         */
+        private String converter;
+        /**
+         * 赋值表达式的前缀（setter调用或字段赋值），生成时拼接值及后缀
+         */
+        private String assignPrefix;
+        private String assignSuffix;
+        /**
+         * 取值表达式
+         */
+        private String getter;
+
+        private MappedField(VariableElement element, AnnotationMirror mirror) {
+            this.element = element;
+            this.type = element.asType();
+            String value = "";
+            String pattern = "";
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                Object annotationValue = entry.getValue().getValue();
+                if ("value".equals(key)) {
+                    value = String.valueOf(annotationValue);
+                } else if ("format".equals(key)) {
+                    pattern = String.valueOf(annotationValue);
+                } else if ("converter".equals(key) && annotationValue instanceof TypeMirror) {
+                    TypeElement converterType = (TypeElement) types.asElement((TypeMirror) annotationValue);
+                    if (!converterType.getQualifiedName().contentEquals(DEFAULT_CONVERTER)) {
+                        converter = converterType.getQualifiedName().toString();
+                    }
+                }
+            }
+            this.name = value;
+            this.format = pattern;
+        }
+
+        /**
+         * 确定字段的读写方式
+         *
+         * @return 不能生成的原因，可以生成时返回null
+         */
+        private String resolve(TypeElement entityType) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+                return "为static或final字段";
+            }
+            if (converter != null) {
+                TypeElement converterType = elements.getTypeElement(converter);
+                if (converterType == null || !converterType.getModifiers().contains(Modifier.PUBLIC)
+                        || converterType.getModifiers().contains(Modifier.ABSTRACT)) {
+                    return "的转换器不是public的可实例化类";
+                }
+            } else if (!isSupportedType()) {
+                return "的类型不支持，需指定converter";
+            }
+            String fieldName = element.getSimpleName().toString();
+            if (isAccessible(element, entityType)) {
+                assignPrefix = "entity." + fieldName + " = ";
+                assignSuffix = "";
+                getter = "entity." + fieldName;
+                return null;
+            }
+            //Lombok生成的方法是public的，继承的字段看声明字段的类
+            Element declaringType = element.getEnclosingElement();
+            boolean lombokGetter = hasAnnotation(declaringType, "lombok.Data") || hasAnnotation(declaringType, "lombok.Getter")
+                    || hasAnnotation(element, "lombok.Getter");
+            boolean lombokSetter = hasAnnotation(declaringType, "lombok.Data") || hasAnnotation(declaringType, "lombok.Setter")
+                    || hasAnnotation(element, "lombok.Setter");
+            String suffix = capitalize(fieldName);
+            String getterName = null;
+            if (type.getKind() == TypeKind.BOOLEAN && findMethod(entityType, "is" + suffix, 0) != null) {
+                getterName = "is" + suffix;
+            } else if (findMethod(entityType, "get" + suffix, 0) != null) {
+                getterName = "get" + suffix;
+            } else if (lombokGetter && !(type.getKind() == TypeKind.BOOLEAN && fieldName.startsWith("is"))) {
+                getterName = (type.getKind() == TypeKind.BOOLEAN ? "is" : "get") + suffix;
+            }
+            String setterName = null;
+            if (findMethod(entityType, "set" + suffix, 1) != null
+                    || lombokSetter && !(type.getKind() == TypeKind.BOOLEAN && fieldName.startsWith("is"))) {
+                setterName = "set" + suffix;
+            }
+            if (getterName == null || setterName == null) {
+                return "不可访问且缺少getter/setter";
+            }
+            assignPrefix = "entity." + setterName + "(";
+            assignSuffix = ")";
+            getter = "entity." + getterName + "()";
+            return null;
+        }
+
+        private boolean isSupportedType() {
+            if (type.getKind().isPrimitive()) {
+                return true;
+            }
+            String typeName = typeName();
+            return "java.lang.String".equals(typeName) || "java.lang.Integer".equals(typeName)
+                    || "java.lang.Long".equals(typeName) || "java.lang.Short".equals(typeName)
+                    || "java.lang.Float".equals(typeName) || "java.lang.Double".equals(typeName)
+                    || "java.lang.Boolean".equals(typeName) || "java.lang.Character".equals(typeName)
+                    || "java.math.BigDecimal".equals(typeName) || "java.util.Date".equals(typeName)
+                    || "java.lang.Object".equals(typeName);
+        }
+
+        private String typeName() {
+            if (type.getKind() == TypeKind.DECLARED) {
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            }
+            return type.toString();
+        }
+
+        private boolean isPrimitiveNumber() {
+            TypeKind kind = type.getKind();
+            return kind == TypeKind.INT || kind == TypeKind.SHORT || kind == TypeKind.FLOAT || kind == TypeKind.DOUBLE;
+        }
+
+        private String getExpression() {
+            return getter;
+        }
+
+        /**
+         * 生成单元格值到字段的赋值语句：与运行时的ExcelValueConverter调用相同的ExcelCellValue方法，
+         * 转换规则（范围校验、日期解析等）只在ExcelCellValue中实现，生成的代码不做类型转换
+         */
+        private void appendSetter(StringBuilder code, int index) {
+            String indent = "                ";
+            if (converter != null) {
+                String boxed = type.getKind().isPrimitive()
+                        ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString() : type.toString();
+                code.append(indent).append("Object value = CONVERTER_").append(index).append(".convert(cell);\n")
+                        .append(indent).append("if (value != null) {\n")
+                        .append(indent).append("    ").append(assign("(" + boxed + ") value")).append(";\n")
+                        .append(indent).append("}\n");
+                return;
+            }
+            String value;
+            switch (typeName()) {
+                case "int":
+                case "java.lang.Integer":
+                    value = "cell.getInt()";
+                    break;
+                case "long":
+                case "java.lang.Long":
+                    value = "cell.getLong()";
+                    break;
+                case "short":
+                case "java.lang.Short":
+                    value = "cell.getShort()";
+                    break;
+                case "float":
+                case "java.lang.Float":
+                    value = "cell.getFloat()";
+                    break;
+                case "double":
+                case "java.lang.Double":
+                    value = "cell.getDouble()";
+                    break;
+                case "boolean":
+                case "java.lang.Boolean":
+                    value = "cell.getBoolean()";
+                    break;
+                case "java.math.BigDecimal":
+                    value = "cell.getBigDecimal()";
+                    break;
+                case "java.util.Date":
+                    //文本日期按注解的format解析，未指定时按默认格式
+                    value = format.isEmpty() ? "cell.getDate()" : "cell.getDate(" + elements.getConstantExpression(format) + ")";
+                    break;
+                case "char":
+                case "java.lang.Character":
+                    code.append(indent).append("Character value = cell.getCharacter();\n")
+                            .append(indent).append("if (value != null) {\n")
+                            .append(indent).append("    ").append(assign("value")).append(";\n")
+                            .append(indent).append("}\n");
+                    return;
+                case "java.lang.String":
+                    value = "cell.getString()";
+                    break;
+                default:
+                    value = "cell.getValue()";
+            }
+            code.append(indent).append(assign(value)).append(";\n");
+        }
+
+        private String assign(String value) {
+            return assignPrefix + value + assignSuffix;
+        }
+    }
+}
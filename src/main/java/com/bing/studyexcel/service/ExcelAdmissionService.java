@@ -0,0 +1,266 @@
+package com.bing.studyexcel.service;
+
+import com.bing.studyexcel.util.ExcelAdmission;
+import com.bing.studyexcel.util.ExcelUtil;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: 导入导出的准入控制：按文件大小及格式估算一次导入导出占用的内存，以MB为许可数的加权信号量限制同时进行的任务，
+ * 内存预算不足时排队等待，排队已满或等待超时则拒绝（接口返回429），避免同时上传多个大文件时堆内存耗尽。
+ * 注册到ExcelUtil后导入在缓存未命中、实际解析时才占用许可；边生成边下载及异步导出持有许可直到文件写完；
+ * 导入结果缓存保留的结果同样占用预算，直到被淘汰
+ */
+@Service
+public class ExcelAdmissionService implements ExcelAdmission {
+
+    private static final long MB = 1024 * 1024;
+    /**
+     * 各格式解析时占用内存与文件大小的大致倍数：xls整个工作簿在内存中，xlsx为压缩文件，
+     * 用户模型下展开后的对象约为文件的数十倍，流式解析只保留共享字符串表
+     */
+    private static final int XLS_FACTOR = 8;
+    private static final int XLSX_FACTOR = 60;
+    private static final int XLSX_STREAMING_FACTOR = 4;
+    private static final int CSV_FACTOR = 2;
+    /**
+     * 导出时每个单元格占用内存的大致字节数，HSSF小于XSSF；
+     * SXSSF及直接写出只在内存中保留窗口内的行及压缩缓冲区，按行数估算并以固定值为上限
+     */
+    private static final int XLS_CELL_BYTES = 200;
+    private static final int XLSX_CELL_BYTES = 500;
+    private static final int STREAMING_CELL_BYTES = 100;
+    private static final long STREAMING_EXPORT_BYTES = 16 * MB;
+    /**
+     * 任务的最小估算值，覆盖解析器本身的开销
+     */
+    private static final long MIN_BYTES = MB;
+
+    /**
+     * 许可数为内存预算的MB数，公平模式下按到达顺序获取，大任务不会被小任务一直插队
+     */
+    private final Semaphore permits;
+    private final int budgetMb;
+    private final int maxQueue;
+    private final long queueTimeoutMillis;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * @param budgetMb           导入导出可占用的内存（MB），不大于0时为最大堆内存的一半
+     * @param maxQueue           内存预算不足时最多排队的请求数
+     * @param queueTimeoutMillis 排队的最长时间（毫秒）
+     */
+    public ExcelAdmissionService(@Value("${excel.admission.memory-budget-mb:0}") int budgetMb,
+                                 @Value("${excel.admission.max-queue:16}") int maxQueue,
+                                 @Value("${excel.admission.queue-timeout:30000}") long queueTimeoutMillis) {
+        this.budgetMb = budgetMb > 0 ? budgetMb : (int) Math.max(Runtime.getRuntime().maxMemory() / 2 / MB, 1);
+        this.permits = new Semaphore(this.budgetMb, true);
+        this.maxQueue = maxQueue;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void register() {
+        ExcelUtil.setAdmission(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        ExcelUtil.setAdmission(null);
+    }
+
+    /**
+     * 占用的内存预算，关闭时归还，多次关闭只归还一次
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int weight;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(int weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                running.decrementAndGet();
+                permits.release(weight);
+            }
+        }
+    }
+
+    /**
+     * 估算导入占用的内存
+     *
+     * @param file      上传文件
+     * @param streaming 是否流式解析（xlsx按行读取，不构建工作簿）
+     * @return 估算的字节数
+     */
+    public long estimateImport(MultipartFile file, boolean streaming) {
+        String fileType = FilenameUtils.getExtension(file.getOriginalFilename());
+        int factor;
+        if (ExcelUtil.EXCEL_XLSX.equalsIgnoreCase(fileType)) {
+            factor = streaming ? XLSX_STREAMING_FACTOR : XLSX_FACTOR;
+        } else if (ExcelUtil.EXCEL_CSV.equalsIgnoreCase(fileType)) {
+            factor = CSV_FACTOR;
+        } else {
+            factor = XLS_FACTOR;
+        }
+        return Math.max(file.getSize() * factor, MIN_BYTES);
+    }
+
+    /**
+     * 估算导出占用的内存
+     *
+     * @param fileType 文件类型，xlsx行数超过{@link ExcelUtil#AUTO_STREAMING_ROWS}时按流式导出估算
+     * @param rows     数据行数
+     * @param clazz    传入数据使用的类
+     * @return 估算的字节数
+     */
+    public long estimateExport(String fileType, long rows, Class<?> clazz) throws Exception {
+        if (ExcelUtil.EXCEL_CSV.equals(fileType)
+                || (ExcelUtil.EXCEL_XLSX.equals(fileType) && rows > ExcelUtil.AUTO_STREAMING_ROWS)) {
+            return estimateStreamingExport(rows, clazz);
+        }
+        int cellBytes = ExcelUtil.EXCEL_XLS.equals(fileType) ? XLS_CELL_BYTES : XLSX_CELL_BYTES;
+        return Math.max(rows * ExcelUtil.getColumnCount(clazz) * cellBytes, MIN_BYTES);
+    }
+
+    /**
+     * 估算边生成边下载（直接写出xlsx、CSV）占用的内存，只在内存中保留当前行及缓冲区，
+     * 按行数及列数估算，行数较多或未知时按上限估算
+     *
+     * @param rows  数据行数，未知时传-1
+     * @param clazz 传入数据使用的类
+     * @return 估算的字节数
+     */
+    public long estimateStreamingExport(long rows, Class<?> clazz) throws Exception {
+        if (rows < 0) {
+            return STREAMING_EXPORT_BYTES;
+        }
+        long bytes = MIN_BYTES + rows * ExcelUtil.getColumnCount(clazz) * STREAMING_CELL_BYTES;
+        return Math.min(bytes, STREAMING_EXPORT_BYTES);
+    }
+
+    @Override
+    public <T> T admitImport(MultipartFile file, boolean streaming, Callable<T> task) throws Exception {
+        return call(estimateImport(file, streaming), task);
+    }
+
+    /**
+     * 在内存预算内执行任务，预算不足时排队等待
+     *
+     * @param estimatedBytes 估算占用的内存，超过预算时按整个预算计（独占执行）
+     * @param task           任务
+     * @return 任务结果
+     * @throws ExcelBusyException 排队已满或等待超时
+     */
+    public <T> T call(long estimatedBytes, Callable<T> task) throws Exception {
+        try (Permit permit = acquire(estimatedBytes)) {
+            return task.call();
+        }
+    }
+
+    /**
+     * 获取内存预算，预算不足时排队等待；用于任务在其他线程中完成的场景，任务结束后需关闭许可
+     *
+     * @param estimatedBytes 估算占用的内存，超过预算时按整个预算计（独占执行）
+     * @return 许可
+     * @throws ExcelBusyException 排队已满或等待超时
+     */
+    public Permit acquire(long estimatedBytes) throws Exception {
+        int weight = (int) Math.min(toMb(estimatedBytes), budgetMb);
+        //不带超时的tryAcquire会插队，带超时（0）时遵循公平顺序
+        if (!permits.tryAcquire(weight, 0, TimeUnit.MILLISECONDS)) {
+            //先计数再判断，并发请求不会同时越过排队上限
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                throw new ExcelBusyException("导入导出任务过多，请稍后再试", retryAfterSeconds());
+            }
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(weight, queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!acquired) {
+                throw new ExcelBusyException("导入导出等待超时，请稍后再试", retryAfterSeconds());
+            }
+        }
+        running.incrementAndGet();
+        return new Permit(weight);
+    }
+
+    /**
+     * 导入结果缓存保留的结果占用内存预算，不排队，预算不足时不缓存
+     */
+    @Override
+    public boolean tryReserve(long bytes) {
+        long weight = toMb(bytes);
+        if (weight > budgetMb) {
+            return false;
+        }
+        try {
+            return permits.tryAcquire((int) weight, 0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void release(long bytes) {
+        permits.release((int) toMb(bytes));
+    }
+
+    /**
+     * 字节数按MB向上取整，至少为1
+     */
+    private static long toMb(long bytes) {
+        return Math.max((bytes + MB - 1) / MB, 1);
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis), 1);
+    }
+
+    /**
+     * @return 正在执行的任务数
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return 排队等待的请求数
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return 已占用的内存预算（MB）
+     */
+    public int getUsedMb() {
+        return budgetMb - permits.availablePermits();
+    }
+
+    /**
+     * @return 内存预算（MB）
+     */
+    public int getBudgetMb() {
+        return budgetMb;
+    }
+}
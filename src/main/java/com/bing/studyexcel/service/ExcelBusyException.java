@@ -0,0 +1,21 @@
+package com.bing.studyexcel.service;
+
+/**
+ * @Description: 导入导出占用的内存超过预算且排队已满或等待超时，请求被拒绝，稍后重试
+ */
+public class ExcelBusyException extends Exception {
+
+    /**
+     * 建议的重试间隔（秒）
+     */
+    private final long retryAfterSeconds;
+
+    public ExcelBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
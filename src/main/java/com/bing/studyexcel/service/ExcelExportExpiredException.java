@@ -0,0 +1,11 @@
+package com.bing.studyexcel.service;
+
+/**
+ * @Description: 异步导出任务不存在、已过期或文件已被删除，需要重新提交导出
+ */
+public class ExcelExportExpiredException extends Exception {
+
+    public ExcelExportExpiredException(String message) {
+        super(message);
+    }
+}
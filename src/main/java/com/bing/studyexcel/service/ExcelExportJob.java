@@ -0,0 +1,162 @@
+package com.bing.studyexcel.service;
+
+import java.io.File;
+
+/**
+ * @Description: 异步导出任务的状态，导出线程更新，状态查询时读取
+ */
+public class ExcelExportJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 排队中
+         */
+        WAITING,
+        /**
+         * 导出中
+         */
+        RUNNING,
+        /**
+         * 已完成，可以下载
+         */
+        FINISHED,
+        /**
+         * 导出失败
+         */
+        FAILED
+    }
+
+    private final String id;
+    /**
+     * 下载时的文件名（不含扩展名）
+     */
+    private final String fileName;
+    /**
+     * 总行数，未知时为-1
+     */
+    private final long totalRows;
+    private final long createTime;
+    private volatile Status status = Status.WAITING;
+    private volatile long rowsWritten;
+    private volatile long finishTime;
+    private volatile String error;
+    private volatile File file;
+    /**
+     * 正在进行的下载数及最后一次下载结束的时间，下载中及下载后保留时间内不清理；过期后不能再下载
+     */
+    private int downloads;
+    private long lastDownloadTime;
+    private boolean expired;
+
+    ExcelExportJob(String id, String fileName, long totalRows) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalRows = totalRows;
+        this.createTime = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * @return 完成百分比，总行数未知时为null
+     */
+    public Integer getPercentage() {
+        if (status == Status.FINISHED) {
+            return 100;
+        }
+        if (totalRows <= 0) {
+            return null;
+        }
+        //数据写完后还需要写出文件，完成前最多显示99
+        return (int) Math.min(99, rowsWritten * 100 / totalRows);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void start(File file) {
+        this.file = file;
+        this.status = Status.RUNNING;
+    }
+
+    void setRowsWritten(long rowsWritten) {
+        //只有导出线程写入
+        this.rowsWritten = rowsWritten;
+    }
+
+    void finish() {
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.FINISHED;
+    }
+
+    /**
+     * 开始下载，任务已过期时返回false
+     */
+    synchronized boolean startDownload() {
+        if (expired) {
+            return false;
+        }
+        downloads++;
+        return true;
+    }
+
+    synchronized void endDownload() {
+        downloads--;
+        lastDownloadTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 任务完成（或最后一次下载）后超过保留时间且没有正在进行的下载时标记为过期
+     *
+     * @param now          当前时间
+     * @param expireMillis 保留时间
+     * @return 是否过期
+     */
+    synchronized boolean expire(long now, long expireMillis) {
+        boolean done = status == Status.FINISHED || status == Status.FAILED;
+        if (done && downloads == 0 && now - Math.max(finishTime, lastDownloadTime) > expireMillis) {
+            expired = true;
+        }
+        return expired;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,185 @@
+package com.bing.studyexcel.service;
+
+import com.bing.studyexcel.util.ExcelUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * @Description: 异步导出：提交后立即返回任务编号，导出在有界线程池中逐行直接写入本地文件，
+ * 完成后通过下载接口读取文件，过期的任务及文件定时清理。任务从提交到导出结束占用准入控制的内存预算
+ */
+@Service
+public class ExcelExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelExportService.class);
+
+    /**
+     * 所有未过期的任务
+     */
+    private final Map<String, ExcelExportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final ExcelAdmissionService admissionService;
+    /**
+     * 导出文件的目录
+     */
+    private final File directory;
+    /**
+     * 任务完成后保留的时间
+     */
+    private final long expireMillis;
+
+    public ExcelExportService(ExcelAdmissionService admissionService,
+                              @Value("${excel.export.pool-size:2}") int poolSize,
+                              @Value("${excel.export.queue-size:16}") int queueSize,
+                              @Value("${excel.export.expire-minutes:30}") long expireMinutes,
+                              @Value("${excel.export.directory:${java.io.tmpdir}}") String directory) {
+        this.admissionService = admissionService;
+        AtomicInteger threadNum = new AtomicInteger();
+        //队列满时拒绝提交，由调用方提示稍后再试，不占用请求线程导出
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "excel-export-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.directory = new File(directory);
+        this.expireMillis = TimeUnit.MINUTES.toMillis(expireMinutes);
+    }
+
+    /**
+     * 提交导出任务（xlsx流式导出）
+     *
+     * @param fileName  下载时的文件名（不含扩展名），同时作为sheet名
+     * @param clazz     传入数据使用的类
+     * @param totalRows 总行数，用于计算进度，未知时传-1
+     * @param data      数据，在导出线程中获取并顺序消费
+     * @return 任务
+     * @throws ExcelBusyException 内存预算不足且排队已满或等待超时
+     */
+    public <T> ExcelExportJob submit(String fileName, Class<T> clazz, long totalRows, Supplier<? extends Iterator<T>> data)
+            throws Exception {
+        ExcelAdmissionService.Permit permit = admissionService.acquire(admissionService.estimateStreamingExport(totalRows, clazz));
+        ExcelExportJob job = new ExcelExportJob(UUID.randomUUID().toString().replace("-", ""), fileName, totalRows);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> export(job, clazz, data, permit));
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            jobs.remove(job.getId());
+            throw new Exception("导出任务过多，请稍后再试");
+        }
+        return job;
+    }
+
+    private <T> void export(ExcelExportJob job, Class<T> clazz, Supplier<? extends Iterator<T>> data,
+                            ExcelAdmissionService.Permit permit) {
+        File file = null;
+        try {
+            file = File.createTempFile("excel-export-" + job.getId(), "." + ExcelUtil.EXCEL_XLSX, directory);
+            job.start(file);
+            //直接写出xlsx到任务文件，不再经过SXSSF的临时文件；行写入后更新进度
+            try (OutputStream out = new FileOutputStream(file)) {
+                ExcelUtil.exportExcelDirect(job.getFileName(), null, data.get(), clazz, out, job::setRowsWritten);
+            }
+            job.finish();
+        } catch (Exception e) {
+            logger.error("导出任务" + job.getId() + "失败", e);
+            job.fail(e.getMessage());
+            deleteFile(file);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * @param id 任务编号
+     * @return 任务，不存在或已过期时返回null
+     */
+    public ExcelExportJob getJob(String id) {
+        return id == null ? null : jobs.get(id);
+    }
+
+    /**
+     * 将已完成任务的文件写入目标通道，使用FileChannel.transferTo，由操作系统直接复制文件数据；
+     * 下载过程中任务不会被清理
+     *
+     * @param job          任务
+     * @param sizeListener 打开文件后、写入数据前接收文件大小，用于设置响应的长度
+     * @param target       目标通道
+     * @return 文件大小
+     * @throws ExcelExportExpiredException 任务已过期或文件已被删除
+     */
+    public long transferTo(ExcelExportJob job, LongConsumer sizeListener, WritableByteChannel target) throws Exception {
+        if (job.getStatus() != ExcelExportJob.Status.FINISHED) {
+            throw new Exception("导出任务未完成");
+        }
+        if (!job.startDownload()) {
+            throw new ExcelExportExpiredException("导出任务不存在或已过期");
+        }
+        try (FileChannel channel = FileChannel.open(job.getFile().toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            sizeListener.accept(size);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        } catch (NoSuchFileException e) {
+            //文件被外部清理（如临时目录清理）时同样按过期处理
+            throw new ExcelExportExpiredException("导出文件不存在或已过期");
+        } finally {
+            job.endDownload();
+        }
+    }
+
+    /**
+     * 清理完成（或最后一次下载）后超过保留时间的任务及文件，正在下载的任务不清理
+     */
+    @Scheduled(fixedDelayString = "${excel.export.clean-interval:60000}")
+    public void cleanExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> {
+            if (job.expire(now, expireMillis)) {
+                deleteFile(job.getFile());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (ExcelExportJob job : jobs.values()) {
+            deleteFile(job.getFile());
+        }
+        jobs.clear();
+    }
+
+    private static void deleteFile(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            logger.warn("导出文件删除失败：{}", file.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.bing.studyexcel.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * @Description: CSV行数据源，从通道按块解码到复用的字符缓冲区中逐字符切分字段，
+ * 未加引号且没有跨缓冲区的字段直接由缓冲区生成字符串，不逐字符复制；设置列投影后不需要的列只扫描不生成字符串。
+ * 支持引号包围的字段（含分隔符、换行，两个引号表示一个引号），空行跳过，所有单元格均为文本
+ */
+final class CsvRowSource implements ExcelRowSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 字段结束的原因：分隔符、行尾、文件结束
+     */
+    private static final int END_OF_FIELD = 0;
+    private static final int END_OF_LINE = 1;
+    private static final int END_OF_FILE = 2;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final char delimiter;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private int pos;
+    private int limit;
+    /**
+     * 通道已读完且解码器已清空
+     */
+    private boolean drained;
+    /**
+     * 字段跨缓冲区或含转义引号时拼接字段
+     */
+    private final StringBuilder builder = new StringBuilder();
+    /**
+     * 当前读取位置所在的行号（从0开始，按换行符计数）
+     */
+    private int lineNum;
+    private int rowNum = -1;
+    /**
+     * 按列复用的单元格值
+     */
+    private ExcelCellValue[] cells = new ExcelCellValue[0];
+    private int cellCount;
+    /**
+     * 按列编号标记是否需要读取，为null时读取所有列
+     */
+    private boolean[] selected;
+    /**
+     * 不需要读取的列返回的空单元格
+     */
+    private final ExcelCellValue blank = new ExcelCellValue();
+
+    /**
+     * @param channel   文件通道，随数据源一起关闭，已跳过字节顺序标记
+     * @param decoder   字符集解码器
+     * @param delimiter 分隔符
+     */
+    CsvRowSource(ReadableByteChannel channel, CharsetDecoder decoder, char delimiter) {
+        this.channel = channel;
+        this.decoder = decoder;
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    public boolean nextRow() throws IOException {
+        //跳过空行
+        while (true) {
+            if (pos == limit && !fill()) {
+                cellCount = 0;
+                return false;
+            }
+            char c = chars[pos];
+            if (c == '\n') {
+                lineNum++;
+            } else if (c != '\r') {
+                break;
+            }
+            pos++;
+        }
+        rowNum = lineNum;
+        int column = 0;
+        int end;
+        do {
+            boolean needed = selected == null || column < selected.length && selected[column];
+            ExcelCellValue cell = null;
+            if (needed) {
+                ensureCapacity(column + 1);
+                cell = cells[column];
+            }
+            end = readField(cell);
+            column++;
+        } while (end == END_OF_FIELD);
+        cellCount = column;
+        return true;
+    }
+
+    /**
+     * 读取一个字段
+     *
+     * @param cell 读取到的值，为null时只跳过该字段
+     * @return 字段结束的原因
+     */
+    private int readField(ExcelCellValue cell) throws IOException {
+        builder.setLength(0);
+        if (pos == limit && !fill()) {
+            setValue(cell, "");
+            return END_OF_FILE;
+        }
+        if (chars[pos] == '"') {
+            pos++;
+            return readQuotedField(cell);
+        }
+        int start = pos;
+        boolean buffered = false;
+        while (true) {
+            if (pos == limit) {
+                //字段跨缓冲区，先保存已读取的部分
+                if (cell != null) {
+                    builder.append(chars, start, pos - start);
+                }
+                buffered = true;
+                if (!fill()) {
+                    setValue(cell, builder.toString());
+                    return END_OF_FILE;
+                }
+                start = 0;
+            }
+            char c = chars[pos];
+            if (c == delimiter || c == '\n' || c == '\r') {
+                if (cell != null) {
+                    if (buffered) {
+                        setValue(cell, builder.append(chars, start, pos - start).toString());
+                    } else {
+                        setValue(cell, new String(chars, start, pos - start));
+                    }
+                }
+                return readEnd();
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 读取引号包围的字段，起始引号已跳过
+     *
+     * @param cell 读取到的值，为null时只跳过该字段
+     * @return 字段结束的原因
+     */
+    private int readQuotedField(ExcelCellValue cell) throws IOException {
+        int start = pos;
+        while (true) {
+            if (pos == limit) {
+                if (cell != null) {
+                    builder.append(chars, start, pos - start);
+                }
+                if (!fill()) {
+                    //引号未闭合，取到文件结束
+                    setValue(cell, builder.toString());
+                    return END_OF_FILE;
+                }
+                start = 0;
+            }
+            char c = chars[pos];
+            if (c == '"') {
+                if (cell != null) {
+                    builder.append(chars, start, pos - start);
+                }
+                pos++;
+                if (pos == limit && !fill()) {
+                    setValue(cell, builder.toString());
+                    return END_OF_FILE;
+                }
+                if (chars[pos] != '"') {
+                    //结束引号，之后到分隔符之间的字符忽略
+                    setValue(cell, builder.toString());
+                    return readEnd();
+                }
+                //两个引号表示一个引号
+                if (cell != null) {
+                    builder.append('"');
+                }
+                start = ++pos;
+                continue;
+            }
+            if (c == '\n') {
+                lineNum++;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 跳过字段之后到分隔符或行尾的字符
+     *
+     * @return 字段结束的原因
+     */
+    private int readEnd() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return END_OF_FILE;
+            }
+            char c = chars[pos++];
+            if (c == delimiter) {
+                return END_OF_FIELD;
+            }
+            if (c == '\n') {
+                lineNum++;
+                return END_OF_LINE;
+            }
+            if (c == '\r') {
+                if ((pos < limit || fill()) && chars[pos] == '\n') {
+                    pos++;
+                }
+                lineNum++;
+                return END_OF_LINE;
+            }
+        }
+    }
+
+    private static void setValue(ExcelCellValue cell, String value) {
+        if (cell != null) {
+            cell.setString(value);
+        }
+    }
+
+    /**
+     * 从通道读取并解码下一块字符
+     *
+     * @return 没有更多字符时返回false
+     */
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        if (drained) {
+            return false;
+        }
+        charBuffer.clear();
+        while (charBuffer.position() == 0) {
+            boolean endOfInput = channel.read(bytes) < 0;
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, charBuffer, endOfInput);
+            bytes.compact();
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput) {
+                decoder.flush(charBuffer);
+                drained = true;
+                break;
+            }
+        }
+        limit = charBuffer.position();
+        return limit > 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cells.length) {
+            int length = cells.length;
+            cells = Arrays.copyOf(cells, Math.max(capacity, length * 2));
+            for (int i = length; i < cells.length; i++) {
+                cells[i] = new ExcelCellValue();
+            }
+        }
+    }
+
+    @Override
+    public int getSheetIndex() {
+        return 0;
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public ExcelCellValue getCell(int column) {
+        if (selected != null && (column >= selected.length || !selected[column])) {
+            return blank;
+        }
+        return cells[column];
+    }
+
+    @Override
+    public void selectColumns(int[] columns) {
+        int last = -1;
+        for (int column : columns) {
+            last = Math.max(last, column);
+        }
+        boolean[] selected = new boolean[last + 1];
+        for (int column : columns) {
+            selected[column] = true;
+        }
+        this.selected = selected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
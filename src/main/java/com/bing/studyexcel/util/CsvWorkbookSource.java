@@ -0,0 +1,117 @@
+package com.bing.studyexcel.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @Description: CSV文件数据源，只有一个sheet。未指定字符集时按字节顺序标记判断，
+ * 没有标记时文件开头能按UTF-8解码则为UTF-8，否则为GBK
+ */
+final class CsvWorkbookSource implements ExcelWorkbookSource {
+
+    /**
+     * 检测字符集时读取的字节数
+     */
+    private static final int DETECT_SIZE = 64 * 1024;
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private final File file;
+    /**
+     * 关闭时需要删除的临时文件
+     */
+    private final File tempFile;
+    private final char delimiter;
+    private final Charset charset;
+    /**
+     * 字节顺序标记的长度，读取时跳过
+     */
+    private final int bomLength;
+
+    /**
+     * @param file      CSV文件
+     * @param temporary 是否为临时文件，为true时关闭后删除该文件
+     * @param delimiter 分隔符
+     * @param charset   字符集，为null时自动检测
+     */
+    CsvWorkbookSource(File file, boolean temporary, char delimiter, Charset charset) throws IOException {
+        this.file = file;
+        this.tempFile = temporary ? file : null;
+        this.delimiter = delimiter;
+        ByteBuffer head = ByteBuffer.allocate(DETECT_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                //读满或读到文件结束
+            }
+        }
+        head.flip();
+        Charset bomCharset = bomCharset(head);
+        this.bomLength = bomCharset == null ? 0 : (StandardCharsets.UTF_8.equals(bomCharset) ? 3 : 2);
+        if (charset != null) {
+            this.charset = charset;
+        } else if (bomCharset != null) {
+            this.charset = bomCharset;
+        } else {
+            this.charset = isUtf8(head) ? StandardCharsets.UTF_8 : GBK;
+        }
+    }
+
+    /**
+     * @return 字节顺序标记对应的字符集，没有标记时返回null
+     */
+    private static Charset bomCharset(ByteBuffer head) {
+        int b0 = head.remaining() > 0 ? head.get(0) & 0xFF : -1;
+        int b1 = head.remaining() > 1 ? head.get(1) & 0xFF : -1;
+        int b2 = head.remaining() > 2 ? head.get(2) & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return StandardCharsets.UTF_8;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * 判断文件开头是否为合法的UTF-8，末尾被截断的字符不算错误
+     */
+    private static boolean isUtf8(ByteBuffer head) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.allocate(head.remaining());
+        return !decoder.decode(head.duplicate(), chars, false).isError();
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public int getSheetCount() {
+        return 1;
+    }
+
+    @Override
+    public ExcelRowSource openSheet(int sheetIndex) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        channel.position(bomLength);
+        //字符集已确定，个别无法解码的字节替换而不中断导入
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return new CsvRowSource(channel, decoder, delimiter);
+    }
+
+    @Override
+    public void close() {
+        if (tempFile != null) {
+            ExcelUtil.deleteTempFile(tempFile);
+        }
+    }
+}
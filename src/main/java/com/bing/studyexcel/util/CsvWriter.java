@@ -0,0 +1,189 @@
+package com.bing.studyexcel.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @Description: 按@Excel注解导出CSV，列顺序及表头与Excel导出一致。数值按原值输出（整数不带小数点），
+ * 日期按注解的format（未指定时按yyyy-MM-dd HH:mm:ss）输出，与CSV导入的解析方式一致；
+ * 含分隔符、引号、换行的字段加引号。以=、+、-、@开头的文本前加单引号，防止被Excel当作公式执行。
+ * UTF-8输出时写入字节顺序标记，便于Excel识别
+ */
+final class CsvWriter<T> implements Closeable {
+
+    private final Writer writer;
+    private final char delimiter;
+    private final List<ExcelField> fields;
+    /**
+     * 各列的日期格式，非日期列为null
+     */
+    private final String[] datePatterns;
+    /**
+     * 各列是否为float基本类型字段
+     */
+    private final boolean[] primitiveFloats;
+    private long rowCount;
+
+    /**
+     * @param out       输出流，由调用方关闭
+     * @param clazz     传入数据使用的类
+     * @param delimiter 分隔符
+     * @param charset   字符集
+     */
+    CsvWriter(OutputStream out, Class<?> clazz, char delimiter, Charset charset) throws Exception {
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                //不关闭调用方的输出流
+                flush();
+            }
+        }, charset), 64 * 1024);
+        this.delimiter = delimiter;
+        this.fields = ExcelClassMeta.of(clazz).getOrderedFields();
+        this.datePatterns = new String[fields.size()];
+        this.primitiveFloats = new boolean[fields.size()];
+        for (int k = 0; k < fields.size(); k++) {
+            Class<?> type = fields.get(k).getType();
+            primitiveFloats[k] = type == float.class;
+            if (Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)) {
+                String format = fields.get(k).getFormat();
+                datePatterns[k] = StringUtils.isEmpty(format) ? ExcelUtil.DEFAULT_DATE_FORMAT : format;
+            }
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            writer.write('\uFEFF');
+        }
+        //即使没有数据也导出表头
+        for (int k = 0; k < fields.size(); k++) {
+            if (k > 0) {
+                writer.write(delimiter);
+            }
+            writeText(fields.get(k).getName());
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * 写入一行数据
+     *
+     * @param item 数据
+     */
+    void write(T item) throws Exception {
+        for (int k = 0; k < fields.size(); k++) {
+            if (k > 0) {
+                writer.write(delimiter);
+            }
+            ExcelField field = fields.get(k);
+            if (field.isPrimitiveNumber()) {
+                //基本数值类型字段不装箱直接写入，float读取为double时数值不变，转回float后按float输出
+                double number = field.getDouble(item);
+                writer.write(primitiveFloats[k] ? formatNumber((float) number) : formatNumber(number));
+                continue;
+            }
+            Object obj = field.getValue(item);
+            //空值为空字段
+            if (obj == null) {
+                continue;
+            }
+            if (obj instanceof Double) {
+                writer.write(formatNumber((Double) obj));
+            } else if (obj instanceof Float) {
+                writer.write(formatNumber((Float) obj));
+            } else if (obj instanceof BigDecimal) {
+                writer.write(((BigDecimal) obj).toPlainString());
+            } else if (obj instanceof Number || obj instanceof Boolean) {
+                writer.write(obj.toString());
+            } else if (obj instanceof Date && datePatterns[k] != null) {
+                writeText(ExcelValueConverter.dateFormat(datePatterns[k]).format((Date) obj));
+            } else if (obj instanceof Calendar && datePatterns[k] != null) {
+                writeText(ExcelValueConverter.dateFormat(datePatterns[k]).format(((Calendar) obj).getTime()));
+            } else {
+                writeText(obj.toString());
+            }
+        }
+        writer.write("\r\n");
+        rowCount++;
+    }
+
+    /**
+     * 整数不输出“.0”，与导入时数值转文本一致
+     */
+    private static String formatNumber(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return Long.toString((long) number);
+        }
+        return Double.toString(number);
+    }
+
+    /**
+     * float按float的最短表示输出，0.1f输出为0.1，而非转为double后的0.10000000149011612
+     */
+    private static String formatNumber(float number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return Long.toString((long) number);
+        }
+        return Float.toString(number);
+    }
+
+    /**
+     * 写入文本，以公式起始字符开头时前加单引号；含分隔符、引号、换行时加引号，引号写为两个引号
+     */
+    private void writeText(String text) throws IOException {
+        if (isFormulaLike(text)) {
+            text = "'" + text;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * 文本以=、+、-、@或制表符、回车开头时，打开CSV的表格软件会将其当作公式
+     */
+    private static boolean isFormulaLike(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    /**
+     * @return 已写入的数据行数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 写出缓冲区中的数据，不关闭调用方的输出流
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -24,4 +24,12 @@ public @interface Excel {
      * 导入用  是否必填
      * */
     boolean required() default false;
+    /**
+     * 导出用  单元格格式，如日期“yyyy-MM-dd”、数值“#,##0.00”，为空时日期按“yyyy-MM-dd HH:mm:ss”导出
+     * */
+    String format() default "";
+    /**
+     * 导入用  自定义转换器，默认按字段类型转换；使用自定义转换器的实体不缓存导入结果
+     * */
+    Class<? extends ExcelConverter> converter() default ExcelConverter.class;
 }
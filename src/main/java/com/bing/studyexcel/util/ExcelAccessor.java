@@ -0,0 +1,186 @@
+package com.bing.studyexcel.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.function.*;
+
+/**
+ * @Description: 实体字段的读写器，随类元数据按类缓存。使用字段的MethodHandle直接读写字段（与Field.get/set语义一致，
+ * 不经过getter/setter），访问检查只在生成时进行一次；int、long、double等基本类型字段提供不装箱的读写方法
+ */
+final class ExcelAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+    /**
+     * 基本数值类型字段的读取，非基本数值类型字段为null
+     */
+    private final ToDoubleFunction<Object> doubleGetter;
+    /**
+     * 基本类型字段的写入，非对应类型字段为null
+     */
+    private final ObjIntConsumer<Object> intSetter;
+    private final ObjLongConsumer<Object> longSetter;
+    private final ObjDoubleConsumer<Object> doubleSetter;
+
+    private ExcelAccessor(Function<Object, Object> getter, BiConsumer<Object, Object> setter,
+                          ToDoubleFunction<Object> doubleGetter, ObjIntConsumer<Object> intSetter,
+                          ObjLongConsumer<Object> longSetter, ObjDoubleConsumer<Object> doubleSetter) {
+        this.getter = getter;
+        this.setter = setter;
+        this.doubleGetter = doubleGetter;
+        this.intSetter = intSetter;
+        this.longSetter = longSetter;
+        this.doubleSetter = doubleSetter;
+    }
+
+    /**
+     * 为字段生成读写器，直接读写字段，不经过getter/setter
+     *
+     * @param field 字段（已setAccessible）
+     * @return 读写器
+     */
+    static ExcelAccessor of(Field field) throws Exception {
+        MethodHandle getHandle;
+        MethodHandle setHandle;
+        try {
+            getHandle = LOOKUP.unreflectGetter(field);
+            setHandle = LOOKUP.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new Exception(field.getDeclaringClass().getName() + " 类的" + field.getName() + "字段无法生成读写器", e);
+        }
+        Class<?> type = field.getType();
+        ToDoubleFunction<Object> doubleGetter = null;
+        if (type == int.class || type == short.class || type == float.class || type == double.class) {
+            doubleGetter = handleDoubleGetter(getHandle);
+        }
+        ObjIntConsumer<Object> intSetter = null;
+        ObjLongConsumer<Object> longSetter = null;
+        ObjDoubleConsumer<Object> doubleSetter = null;
+        if (type == int.class) {
+            intSetter = handleIntSetter(setHandle);
+        } else if (type == long.class) {
+            longSetter = handleLongSetter(setHandle);
+        } else if (type == double.class) {
+            doubleSetter = handleDoubleSetter(setHandle);
+        }
+        return new ExcelAccessor(handleGetter(getHandle), handleSetter(setHandle), doubleGetter, intSetter,
+                longSetter, doubleSetter);
+    }
+
+    private static Function<Object, Object> handleGetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return entity -> {
+            try {
+                return (Object) h.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static BiConsumer<Object, Object> handleSetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (entity, value) -> {
+            try {
+                h.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static ToDoubleFunction<Object> handleDoubleGetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(double.class, Object.class));
+        return entity -> {
+            try {
+                return (double) h.invokeExact(entity);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static ObjIntConsumer<Object> handleIntSetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class, int.class));
+        return (entity, value) -> {
+            try {
+                h.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static ObjLongConsumer<Object> handleLongSetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class, long.class));
+        return (entity, value) -> {
+            try {
+                h.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static ObjDoubleConsumer<Object> handleDoubleSetter(MethodHandle handle) {
+        MethodHandle h = handle.asType(MethodType.methodType(void.class, Object.class, double.class));
+        return (entity, value) -> {
+            try {
+                h.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    Object get(Object entity) {
+        return getter.apply(entity);
+    }
+
+    double getDouble(Object entity) {
+        return doubleGetter.applyAsDouble(entity);
+    }
+
+    void set(Object entity, Object value) {
+        setter.accept(entity, value);
+    }
+
+    void setInt(Object entity, int value) {
+        if (intSetter != null) {
+            intSetter.accept(entity, value);
+        } else {
+            setter.accept(entity, value);
+        }
+    }
+
+    void setLong(Object entity, long value) {
+        if (longSetter != null) {
+            longSetter.accept(entity, value);
+        } else {
+            setter.accept(entity, value);
+        }
+    }
+
+    void setDouble(Object entity, double value) {
+        if (doubleSetter != null) {
+            doubleSetter.accept(entity, value);
+        } else {
+            setter.accept(entity, value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bing.studyexcel.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.concurrent.Callable;
+
+/**
+ * @Description: 导入的准入控制，通过ExcelUtil.setAdmission注册，用于限制同时进行的解析占用的内存。
+ * 导入方法在实际解析文件时（设置了导入结果缓存时为缓存未命中时）经过准入控制，
+ * 缓存命中及等待同一文件解析结果的请求不占用许可；迭代器及Stream方式由调用方控制生命周期，不经过准入控制。
+ * 导入结果缓存保留的结果通过tryReserve、release计入内存占用。实现需线程安全
+ */
+public interface ExcelAdmission {
+
+    /**
+     * 不做限制，直接执行
+     */
+    ExcelAdmission NONE = new ExcelAdmission() {
+        @Override
+        public <T> T admitImport(MultipartFile file, boolean streaming, Callable<T> task) throws Exception {
+            return task.call();
+        }
+    };
+
+    /**
+     * 在准入控制下执行一次导入解析，资源不足时可排队或抛出异常拒绝
+     *
+     * @param file      上传文件
+     * @param streaming 是否流式解析（xlsx按行读取，不构建工作簿）
+     * @param task      解析
+     * @return 解析结果
+     */
+    <T> T admitImport(MultipartFile file, boolean streaming, Callable<T> task) throws Exception;
+
+    /**
+     * 不等待地占用内存，用于导入结果缓存保留的结果
+     *
+     * @param bytes 估算的字节数
+     * @return 是否占用成功，失败时不缓存该结果
+     */
+    default boolean tryReserve(long bytes) {
+        return true;
+    }
+
+    /**
+     * 归还tryReserve占用的内存
+     *
+     * @param bytes 占用时的字节数
+     */
+    default void release(long bytes) {
+    }
+}
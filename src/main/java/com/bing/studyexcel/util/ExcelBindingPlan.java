@@ -0,0 +1,154 @@
+package com.bing.studyexcel.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * @Description: 某个sheet表头与实体字段的绑定计划（不可变），每个sheet计算一次，所有数据行复用
+ */
+final class ExcelBindingPlan {
+
+    private final ExcelClassMeta meta;
+    /**
+     * 表头
+     */
+    private final String[] heads;
+    /**
+     * 绑定的列编号，与fields一一对应
+     */
+    private final int[] columns;
+    /**
+     * 绑定的字段
+     */
+    private final ExcelField[] fields;
+
+    private ExcelBindingPlan(ExcelClassMeta meta, String[] heads, int[] columns, ExcelField[] fields) {
+        this.meta = meta;
+        this.heads = heads;
+        this.columns = columns;
+        this.fields = fields;
+    }
+
+    /**
+     * 校验表头并生成绑定计划
+     *
+     * @param meta  实体类元数据
+     * @param heads 表头，空列为空串
+     * @return 绑定计划
+     */
+    static ExcelBindingPlan build(ExcelClassMeta meta, String[] heads) throws Exception {
+        if (heads == null || heads.length == 0) {
+            throw new Exception("表头为空");
+        }
+        //获取Excel表头与列编号的映射，并校验表头字段是否存在重复表头
+        Map<String, Integer> headColumnMap = new HashMap<>(heads.length * 2);
+        for (int i = 0; i < heads.length; i++) {
+            String head = heads[i];
+            if (StringUtils.isEmpty(head)) {
+                continue;
+            }
+            if (headColumnMap.put(head, i) != null) {
+                throw new Exception("表头中存在重复字段");
+            }
+        }
+        //校验表头中是否包含所有必须的字段
+        for (String name : meta.getRequiredNames()) {
+            if (!headColumnMap.containsKey(name)) {
+                throw new Exception("Excel表头中缺少“" + name + "”字段");
+            }
+        }
+        //获取字段与列编号的映射，表头中不存在的非必须字段不导入
+        List<ExcelField> fieldList = meta.getFields();
+        int[] columns = new int[fieldList.size()];
+        ExcelField[] fields = new ExcelField[fieldList.size()];
+        int size = 0;
+        for (ExcelField field : fieldList) {
+            Integer column = headColumnMap.get(field.getName());
+            if (column != null) {
+                columns[size] = column;
+                fields[size] = field;
+                size++;
+            }
+        }
+        return new ExcelBindingPlan(meta, heads.clone(), Arrays.copyOf(columns, size), Arrays.copyOf(fields, size));
+    }
+
+    ExcelClassMeta getMeta() {
+        return meta;
+    }
+
+    String[] getHeads() {
+        return heads.clone();
+    }
+
+    /**
+     * @return 绑定的列编号
+     */
+    int[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * 给对象赋值，遇到第一个错误时抛出异常
+     *
+     * @param entity 实体
+     * @param row    数据行
+     */
+    void apply(Object entity, ExcelRow row) throws Exception {
+        apply(entity, row, null);
+    }
+
+    /**
+     * 给对象赋值，errors不为空时记录本行所有的错误而不抛出异常
+     *
+     * @param entity 实体
+     * @param row    数据行
+     * @param errors 错误列表，为null时遇到第一个错误即抛出异常
+     * @return 本行是否没有错误
+     */
+    boolean apply(Object entity, ExcelRow row, List<ExcelRowError> errors) throws Exception {
+        int cellCount = row.getCellCount();
+        if (cellCount == 0) {
+            return reject(errors, row, -1, null, "数据不存在");
+        }
+        boolean valid = true;
+        for (int i = 0; i < fields.length; i++) {
+            ExcelField field = fields[i];
+            int cellNum = columns[i];
+            ExcelCellValue cell = cellNum < cellCount ? row.getCell(cellNum) : null;
+            if (cell == null || cell.isBlank()) {
+                //是必须字段却没数据
+                if (field.isRequired()) {
+                    valid = reject(errors, row, cellNum, field.getName(), "“" + field.getName() + "”字段的数据为必须数据，不能为空");
+                }
+                //不是必须字段也没数据
+                continue;
+            }
+            if (errors == null) {
+                field.setValue(entity, cell);
+                continue;
+            }
+            try {
+                field.setValue(entity, cell);
+            } catch (Exception e) {
+                valid = reject(errors, row, cellNum, field.getName(), "“" + field.getName() + "”字段的数据“" + cell + "”格式不正确");
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 记录错误，errors为null时抛出异常
+     *
+     * @return false
+     */
+    private static boolean reject(List<ExcelRowError> errors, ExcelRow row, int column, String header, String message)
+            throws Exception {
+        if (errors == null) {
+            throw new Exception(message);
+        }
+        errors.add(new ExcelRowError(row.getSheetIndex(), row.getRowNum() + 1, column, header, message));
+        return false;
+    }
+}
@@ -0,0 +1,245 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * @Description: 导入时单元格的原生值（文本、数值、布尔、日期），数值不装箱、不经过字符串中转。
+ * 同一列的对象在各行之间复用，只在当前行处理期间有效，需要保留时调用copy()。
+ * 各类型的转换规则只在这里实现，运行时的转换器与注解处理器生成的映射器都调用这些方法
+ */
+public final class ExcelCellValue {
+
+    /**
+     * 空单元格
+     */
+    public static final int TYPE_BLANK = 0;
+    /**
+     * 文本
+     */
+    public static final int TYPE_STRING = 1;
+    /**
+     * 数值
+     */
+    public static final int TYPE_NUMERIC = 2;
+    /**
+     * 布尔
+     */
+    public static final int TYPE_BOOLEAN = 3;
+    /**
+     * 日期（日期格式的数值）
+     */
+    public static final int TYPE_DATE = 4;
+
+    private int type;
+    private String text;
+    private double number;
+    private boolean bool;
+
+    void setBlank() {
+        this.type = TYPE_BLANK;
+        this.text = null;
+    }
+
+    void setString(String text) {
+        if (text == null || text.isEmpty()) {
+            setBlank();
+        } else {
+            this.type = TYPE_STRING;
+            this.text = text;
+        }
+    }
+
+    void setNumber(double number, boolean date) {
+        this.type = date ? TYPE_DATE : TYPE_NUMERIC;
+        this.text = null;
+        this.number = number;
+    }
+
+    void setBoolean(boolean bool) {
+        this.type = TYPE_BOOLEAN;
+        this.text = null;
+        this.bool = bool;
+    }
+
+    /**
+     * @return 复制当前值，用于跨行保留
+     */
+    public ExcelCellValue copy() {
+        ExcelCellValue value = new ExcelCellValue();
+        value.type = type;
+        value.text = text;
+        value.number = number;
+        value.bool = bool;
+        return value;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public boolean isBlank() {
+        return type == TYPE_BLANK;
+    }
+
+    /**
+     * @return 文本形式的值，整数值不带小数点，日期按yyyy-MM-dd HH:mm:ss格式
+     */
+    public String getString() {
+        switch (type) {
+            case TYPE_STRING:
+                return text;
+            case TYPE_NUMERIC:
+                //整数不输出“.0”，避免手机号等被写成科学计数法
+                if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                    return Long.toString((long) number);
+                }
+                return Double.toString(number);
+            case TYPE_BOOLEAN:
+                return bool ? "TRUE" : "FALSE";
+            case TYPE_DATE:
+                return ExcelValueConverter.dateFormat(ExcelUtil.DEFAULT_DATE_FORMAT).format(DateUtil.getJavaDate(number));
+            default:
+                return "";
+        }
+    }
+
+    public double getDouble() {
+        switch (type) {
+            case TYPE_NUMERIC:
+            case TYPE_DATE:
+                return number;
+            case TYPE_BOOLEAN:
+                return bool ? 1 : 0;
+            default:
+                return Double.parseDouble(text.trim());
+        }
+    }
+
+    /**
+     * @return 整数值，小数或超出int范围时抛出NumberFormatException
+     */
+    public int getInt() {
+        return (int) getWholeNumber(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return 整数值，小数或超出short范围时抛出NumberFormatException
+     */
+    public short getShort() {
+        return (short) getWholeNumber(Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    /**
+     * @return 整数值，小数或超出long范围时抛出NumberFormatException
+     */
+    public long getLong() {
+        return getWholeNumber(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * 读取整数，不截断小数、不回绕溢出，数据有误时由校验导入记录为行错误
+     *
+     * @param min 最小值
+     * @param max 最大值
+     * @return 整数值
+     */
+    private long getWholeNumber(long min, long max) {
+        long value;
+        if (type == TYPE_STRING) {
+            //文本可能超出double的精度，按十进制解析；“12.0”视为整数
+            try {
+                value = new BigDecimal(text.trim()).longValueExact();
+            } catch (ArithmeticException e) {
+                throw new NumberFormatException("“" + text + "”不是整数或超出范围");
+            }
+        } else {
+            double number = getDouble();
+            if (number != Math.rint(number)) {
+                throw new NumberFormatException("“" + getString() + "”不是整数");
+            }
+            //max + 1.0对long为2^63，可精确比较
+            if (number < min || number >= max + 1.0) {
+                throw new NumberFormatException("“" + getString() + "”超出范围");
+            }
+            value = (long) number;
+        }
+        if (value < min || value > max) {
+            throw new NumberFormatException("“" + getString() + "”超出范围");
+        }
+        return value;
+    }
+
+    public float getFloat() {
+        return (float) getDouble();
+    }
+
+    /**
+     * @return 文本的第一个字符，空文本返回null
+     */
+    public Character getCharacter() {
+        String value = getString();
+        return value.isEmpty() ? null : value.charAt(0);
+    }
+
+    public BigDecimal getBigDecimal() {
+        if (type == TYPE_STRING) {
+            return new BigDecimal(text.trim());
+        }
+        return BigDecimal.valueOf(getDouble());
+    }
+
+    public boolean getBoolean() {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return bool;
+            case TYPE_NUMERIC:
+                return number != 0;
+            default:
+                String value = getString().trim();
+                return "true".equalsIgnoreCase(value) || "1".equals(value) || "是".equals(value);
+        }
+    }
+
+    /**
+     * @return 单元格的原生值：数值为Double，布尔为Boolean，日期为Date，其余为文本
+     */
+    public Object getValue() {
+        switch (type) {
+            case TYPE_NUMERIC:
+                return number;
+            case TYPE_BOOLEAN:
+                return bool;
+            case TYPE_DATE:
+                return DateUtil.getJavaDate(number);
+            default:
+                return getString();
+        }
+    }
+
+    /**
+     * @return 日期，文本按yyyy-MM-dd HH:mm:ss解析
+     */
+    public Date getDate() throws ParseException {
+        return getDate(ExcelUtil.DEFAULT_DATE_FORMAT);
+    }
+
+    /**
+     * @param pattern 文本的日期格式
+     * @return 日期
+     */
+    public Date getDate(String pattern) throws ParseException {
+        if (type == TYPE_NUMERIC || type == TYPE_DATE) {
+            return DateUtil.getJavaDate(number);
+        }
+        return ExcelValueConverter.dateFormat(pattern).parse(getString().trim());
+    }
+
+    @Override
+    public String toString() {
+        return getString();
+    }
+}
@@ -0,0 +1,269 @@
+package com.bing.studyexcel.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * @Description: 实体类的@Excel注解元数据，每个类只扫描一次并缓存。父类的字段及@ExcelNested嵌套对象的字段
+ * 展开为一组列（嵌套列名为前缀加嵌套对象的列名），导入导出直接读写实体，无需先复制到扁平的DTO
+ */
+final class ExcelClassMeta {
+
+    /**
+     * 缓存的最大类数量，超出后淘汰最久未使用的类
+     */
+    private static final int MAX_CACHE_SIZE = 256;
+    /**
+     * 类元数据缓存（LRU）
+     */
+    private static final Map<Class<?>, ExcelClassMeta> CACHE =
+            Collections.synchronizedMap(new LinkedHashMap<Class<?>, ExcelClassMeta>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Class<?>, ExcelClassMeta> eldest) {
+                    return size() > MAX_CACHE_SIZE;
+                }
+            });
+
+    private final Class<?> entityClass;
+    /**
+     * 按声明顺序排列的字段（父类的字段在前，嵌套对象的字段在嵌套字段的位置展开）
+     */
+    private final List<ExcelField> fields;
+    /**
+     * 按order排列的字段（导出列顺序）
+     */
+    private final List<ExcelField> orderedFields;
+    /**
+     * 列名与字段的映射
+     */
+    private final Map<String, ExcelField> fieldByName;
+    /**
+     * 必须字段的列名
+     */
+    private final Set<String> requiredNames;
+    /**
+     * 是否可以复制实体（没有使用自定义转换器的字段）
+     */
+    private final boolean copyable;
+
+    /**
+     * 编译期生成的映射器，不存在时为null
+     */
+    private final ExcelRowMapper<Object> mapper;
+
+    /**
+     * 展开后的一列：@Excel字段及从实体到该字段所在对象经过的嵌套字段
+     */
+    private static final class Column {
+        final String name;
+        final Field field;
+        final Excel excel;
+        final List<Field> parents;
+
+        Column(String name, Field field, Excel excel, List<Field> parents) {
+            this.name = name;
+            this.field = field;
+            this.excel = excel;
+            this.parents = parents;
+        }
+    }
+
+    private ExcelClassMeta(Class<?> entityClass) throws Exception {
+        if (hierarchy(entityClass).stream().allMatch(type -> type.getDeclaredFields().length == 0)) {
+            throw new Exception(entityClass.getName() + " 类属性为空");
+        }
+        //继承的字段及嵌套对象的字段展开为一列，只在构建元数据时计算一次
+        Map<String, Column> columns = new LinkedHashMap<>(16);
+        collectColumns(entityClass, entityClass, "", Collections.emptyList(), columns);
+        if (columns.isEmpty()) {
+            throw new Exception("实体类不包含任何属性");
+        }
+        //映射器只包含实体自身及继承的字段，嵌套对象的字段使用反射读写
+        Set<String> directNames = new LinkedHashSet<>();
+        for (Column column : columns.values()) {
+            if (column.parents.isEmpty()) {
+                directNames.add(column.name);
+            }
+        }
+        ExcelRowMapper<Object> rowMapper = directNames.isEmpty() ? null : loadMapper(entityClass, directNames);
+        List<String> mapperNames = rowMapper == null ? Collections.emptyList() : Arrays.asList(rowMapper.getNames());
+
+        List<ExcelField> fieldList = new ArrayList<>();
+        Map<String, ExcelField> nameMap = new LinkedHashMap<>(16);
+        Set<String> requiredSet = new LinkedHashSet<>();
+        for (Column column : columns.values()) {
+            ExcelField excelField = column.parents.isEmpty()
+                    ? new ExcelField(column.field, column.excel, column.name, column.parents, rowMapper,
+                    mapperNames.indexOf(column.name))
+                    : new ExcelField(column.field, column.excel, column.name, column.parents, null, -1);
+            nameMap.put(excelField.getName(), excelField);
+            fieldList.add(excelField);
+            if (excelField.isRequired()) {
+                requiredSet.add(excelField.getName());
+            }
+        }
+        List<ExcelField> ordered = new ArrayList<>(fieldList);
+        ordered.sort(Comparator.comparingInt(ExcelField::getOrder));
+
+        this.entityClass = entityClass;
+        this.mapper = rowMapper;
+        this.fields = Collections.unmodifiableList(fieldList);
+        this.orderedFields = Collections.unmodifiableList(ordered);
+        this.fieldByName = Collections.unmodifiableMap(nameMap);
+        this.requiredNames = Collections.unmodifiableSet(requiredSet);
+        this.copyable = columns.values().stream().allMatch(column -> column.excel.converter() == ExcelConverter.class);
+    }
+
+    /**
+     * @return 类及其父类（不含Object），父类在前
+     */
+    private static List<Class<?>> hierarchy(Class<?> type) {
+        LinkedList<Class<?>> types = new LinkedList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            types.addFirst(c);
+        }
+        return types;
+    }
+
+    /**
+     * 收集类（含父类）的@Excel字段，@ExcelNested字段递归展开，父类的字段在前
+     *
+     * @param entityClass 实体类，用于错误提示
+     * @param type        当前展开的类
+     * @param prefix      列名前缀
+     * @param parents     从实体到当前类经过的嵌套字段
+     * @param columns     列名与列的映射
+     */
+    private static void collectColumns(Class<?> entityClass, Class<?> type, String prefix, List<Field> parents,
+                                       Map<String, Column> columns) throws Exception {
+        for (Class<?> declaring : hierarchy(type)) {
+            for (Field field : declaring.getDeclaredFields()) {
+                Excel excel = field.getAnnotation(Excel.class);
+                ExcelNested nested = field.getAnnotation(ExcelNested.class);
+                if (excel != null && nested != null) {
+                    throw new Exception(entityClass.getName() + " 类中，字段" + field.getName() + "不能同时标注@Excel和@ExcelNested");
+                }
+                if (excel != null) {
+                    if (StringUtils.isEmpty(excel.value())) {
+                        throw new Exception(entityClass.getName() + " 类中，字段" + field.getName() + "的@Excel注解的value值不能为空或空串");
+                    }
+                    String name = prefix + excel.value();
+                    if (columns.put(name, new Column(name, field, excel, parents)) != null) {
+                        throw new Exception(entityClass.getName() + " 类中@Excel注解的value值存在重复现象：" + name);
+                    }
+                } else if (nested != null) {
+                    Class<?> nestedType = field.getType();
+                    if (nestedType.isPrimitive() || nestedType.isArray() || nestedType.isInterface()
+                            || Modifier.isAbstract(nestedType.getModifiers())) {
+                        //集合等无法确定列数，不能展开为固定的列
+                        throw new Exception(entityClass.getName() + " 类中，嵌套字段" + field.getName() + "的类型必须为可实例化的类");
+                    }
+                    if (nestedType == entityClass || parents.stream().anyMatch(parent -> parent.getType() == nestedType)) {
+                        throw new Exception(entityClass.getName() + " 类中，嵌套字段" + field.getName() + "存在循环嵌套");
+                    }
+                    List<Field> path = new ArrayList<>(parents);
+                    path.add(field);
+                    collectColumns(entityClass, nestedType, prefix + nested.prefix(), Collections.unmodifiableList(path), columns);
+                }
+            }
+        }
+    }
+
+    /**
+     * 加载编译期生成的映射器，不存在或与类的字段不一致（如类修改后未重新生成）时返回null
+     *
+     * @param entityClass 实体类
+     * @param names       @Excel注解的列名
+     * @return 映射器
+     */
+    @SuppressWarnings("unchecked")
+    private static ExcelRowMapper<Object> loadMapper(Class<?> entityClass, Set<String> names) {
+        String mapperName = entityClass.getName().replace('$', '_') + "ExcelMapper";
+        try {
+            Class<?> mapperClass = Class.forName(mapperName, true, entityClass.getClassLoader());
+            if (!ExcelRowMapper.class.isAssignableFrom(mapperClass)) {
+                return null;
+            }
+            ExcelRowMapper<Object> rowMapper = (ExcelRowMapper<Object>) mapperClass.newInstance();
+            String[] mapperNames = rowMapper.getNames();
+            if (mapperNames.length != names.size() || !names.containsAll(Arrays.asList(mapperNames))) {
+                return null;
+            }
+            return rowMapper;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取类的元数据，优先从缓存中获取
+     *
+     * @param clazz 实体类
+     * @return 元数据
+     */
+    static ExcelClassMeta of(Class<?> clazz) throws Exception {
+        if (clazz == null) {
+            throw new Exception("类不能为空");
+        }
+        ExcelClassMeta meta = CACHE.get(clazz);
+        if (meta == null) {
+            //并发时可能重复构建，结果相同，不影响正确性
+            meta = new ExcelClassMeta(clazz);
+            CACHE.put(clazz, meta);
+        }
+        return meta;
+    }
+
+    Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * 创建实体，存在映射器时不使用反射
+     *
+     * @return 实体
+     */
+    Object newInstance() throws Exception {
+        return mapper != null ? mapper.newInstance() : entityClass.newInstance();
+    }
+
+    /**
+     * @return 是否可以通过copy复制实体，自定义转换器生成的值可能可变且无法复制，含这类字段时为false
+     */
+    boolean isCopyable() {
+        return copyable;
+    }
+
+    /**
+     * 复制实体中导入时赋值的字段（@Excel字段，嵌套对象按字段重新创建），其余字段为构造后的初始值
+     *
+     * @param entity 实体
+     * @return 新实体
+     */
+    Object copy(Object entity) throws Exception {
+        Object copy = newInstance();
+        for (ExcelField field : fields) {
+            field.copyValue(entity, copy);
+        }
+        return copy;
+    }
+
+    List<ExcelField> getFields() {
+        return fields;
+    }
+
+    List<ExcelField> getOrderedFields() {
+        return orderedFields;
+    }
+
+    ExcelField getField(String name) {
+        return fieldByName.get(name);
+    }
+
+    Set<String> getRequiredNames() {
+        return requiredNames;
+    }
+}
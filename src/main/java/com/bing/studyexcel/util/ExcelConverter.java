@@ -0,0 +1,15 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 自定义的导入转换器，通过@Excel注解的converter指定，需提供无参构造方法，每个字段只实例化一次
+ */
+public interface ExcelConverter<T> {
+
+    /**
+     * 将单元格的值转换为字段值
+     *
+     * @param cell 单元格的值（非空单元格）
+     * @return 字段值，返回null时不赋值
+     */
+    T convert(ExcelCellValue cell) throws Exception;
+}
@@ -0,0 +1,141 @@
+package com.bing.studyexcel.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @Description: 从行数据源中逐个读取实体，每个sheet的首行为表头并据此生成绑定计划
+ */
+final class ExcelEntityReader<T> implements Closeable {
+
+    private final ExcelRowSource source;
+    private final Class<T> entityClass;
+    private final ExcelClassMeta meta;
+    private int sheetIndex = -1;
+    private ExcelBindingPlan plan;
+    /**
+     * 指标监听器，未注册时不计时
+     */
+    private final ExcelMetricsListener metrics;
+    private final boolean timed;
+    /**
+     * 已转换的行数及转换耗时合计
+     */
+    private long convertedRows;
+    private long convertNanos;
+    private long errorCount;
+
+    ExcelEntityReader(ExcelRowSource source, Class<T> entityClass) throws Exception {
+        this.source = source;
+        this.entityClass = entityClass;
+        this.meta = ExcelClassMeta.of(entityClass);
+        this.metrics = ExcelUtil.metrics();
+        this.timed = metrics != ExcelMetricsListener.NONE;
+    }
+
+    /**
+     * 读取下一个实体
+     *
+     * @return 实体，没有更多数据时返回null
+     */
+    T read() throws Exception {
+        if (!nextDataRow()) {
+            return null;
+        }
+        long start = timed ? System.nanoTime() : 0;
+        T entity = entityClass.cast(meta.newInstance());
+        //给对象赋值
+        plan.apply(entity, source);
+        if (timed) {
+            convertNanos += System.nanoTime() - start;
+        }
+        convertedRows++;
+        return entity;
+    }
+
+    /**
+     * 读取下一个实体，数据有误的行记录错误后跳过
+     *
+     * @param errors    错误列表
+     * @param maxErrors 错误数量上限，超过后不再读取
+     * @return 实体，没有更多数据或错误数量超过上限时返回null
+     */
+    T read(List<ExcelRowError> errors, int maxErrors) throws Exception {
+        while (errors.size() <= maxErrors && nextDataRow()) {
+            long start = timed ? System.nanoTime() : 0;
+            int errorSize = errors.size();
+            T entity = entityClass.cast(meta.newInstance());
+            boolean valid = plan.apply(entity, source, errors);
+            if (timed) {
+                convertNanos += System.nanoTime() - start;
+            }
+            convertedRows++;
+            errorCount += errors.size() - errorSize;
+            if (valid) {
+                return entity;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 移动到下一个数据行，遇到表头时校验表头并生成本sheet的绑定计划
+     *
+     * @return 没有更多数据时返回false
+     */
+    boolean nextDataRow() throws Exception {
+        while (source.nextRow()) {
+            if (source.getSheetIndex() != sheetIndex) {
+                sheetIndex = source.getSheetIndex();
+                plan = null;
+            }
+            //第一次进入获取表头，以后跳过表头
+            if (source.getRowNum() < ExcelUtil.EXCEL_HEAD_ROW_NUM) {
+                String[] heads = new String[source.getCellCount()];
+                for (int k = 0; k < heads.length; k++) {
+                    heads[k] = source.getCell(k).getString();
+                }
+                //校验表头，生成本sheet的绑定计划
+                long start = timed ? System.nanoTime() : 0;
+                plan = ExcelBindingPlan.build(meta, heads);
+                //数据行只读取绑定的列
+                source.selectColumns(plan.getColumns());
+                if (timed) {
+                    metrics.headerValidated(entityClass, System.nanoTime() - start);
+                }
+                continue;
+            }
+            if (plan == null) {
+                throw new IOException("表头为空");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 当前数据行
+     */
+    ExcelRow getRow() {
+        return source;
+    }
+
+    /**
+     * @return 当前sheet的绑定计划
+     */
+    ExcelBindingPlan getPlan() {
+        return plan;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (convertedRows > 0) {
+            metrics.rowsConverted(entityClass, convertedRows, convertNanos);
+        }
+        if (errorCount > 0) {
+            metrics.rowErrors(entityClass, errorCount);
+        }
+        source.close();
+    }
+}
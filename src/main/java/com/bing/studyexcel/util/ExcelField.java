@@ -0,0 +1,227 @@
+package com.bing.studyexcel.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @Description: 被@Excel注解标注的实体字段元数据（不可变）
+ */
+final class ExcelField {
+
+    /**
+     * 实体字段
+     */
+    private final Field field;
+    /**
+     * 对应的列名（@Excel注解的value值）
+     */
+    private final String name;
+    /**
+     * 顺序
+     */
+    private final int order;
+    /**
+     * 导入用  是否必填
+     */
+    private final boolean required;
+    /**
+     * 导出用  单元格格式
+     */
+    private final String format;
+    /**
+     * 是否为实体自身（含继承）的int、short、float、double字段，导出时不装箱读取；
+     * 嵌套对象的字段在嵌套对象为null时需导出为空，不在此列
+     */
+    private final boolean primitiveNumber;
+    /**
+     * 编译期生成的映射器，不存在时为null，使用converter和accessor
+     */
+    private final ExcelRowMapper<Object> mapper;
+    /**
+     * 字段在映射器中的编号
+     */
+    private final int index;
+    /**
+     * 导入用  单元格数据到字段类型的转换器
+     */
+    private final ExcelValueConverter converter;
+    /**
+     * 字段读写器
+     */
+    private final ExcelAccessor accessor;
+    /**
+     * 从实体到字段所在对象经过的嵌套字段的读写器，实体自身的字段为空数组
+     */
+    private final ExcelAccessor[] parents;
+    /**
+     * 导入时创建为null的嵌套对象
+     */
+    private final Constructor<?>[] parentConstructors;
+
+    /**
+     * @param field   字段
+     * @param excel   注解
+     * @param name    列名（嵌套对象的字段含前缀）
+     * @param parents 从实体到字段所在对象经过的嵌套字段，实体自身的字段为空
+     * @param mapper  编译期生成的映射器，不存在时为null，嵌套对象的字段必须为null
+     * @param index   字段在映射器中的编号
+     */
+    ExcelField(Field field, Excel excel, String name, List<Field> parents, ExcelRowMapper<Object> mapper, int index)
+            throws Exception {
+        Class<?> type = field.getType();
+        this.field = field;
+        this.name = name;
+        this.order = excel.order();
+        this.required = excel.required();
+        this.format = excel.format();
+        this.primitiveNumber = parents.isEmpty()
+                && (type == int.class || type == short.class || type == float.class || type == double.class);
+        this.parents = new ExcelAccessor[parents.size()];
+        this.parentConstructors = new Constructor<?>[parents.size()];
+        for (int i = 0; i < parents.size(); i++) {
+            Field parent = parents.get(i);
+            parent.setAccessible(true);
+            this.parents[i] = ExcelAccessor.of(parent);
+            try {
+                this.parentConstructors[i] = parent.getType().getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new Exception(parent.getType().getName() + " 类缺少无参构造方法，不能作为嵌套字段" + parent.getName() + "的类型", e);
+            }
+            this.parentConstructors[i].setAccessible(true);
+        }
+        this.mapper = mapper;
+        this.index = index;
+        //映射器没有按对象赋值的方法，复制实体时使用反射
+        field.setAccessible(true);
+        if (mapper == null) {
+            this.converter = ExcelValueConverter.forField(field, excel);
+            this.accessor = ExcelAccessor.of(field);
+        } else {
+            this.converter = null;
+            this.accessor = null;
+        }
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    boolean isRequired() {
+        return required;
+    }
+
+    String getFormat() {
+        return format;
+    }
+
+    Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * 将单元格的值转换后赋值给实体
+     *
+     * @param entity 实体
+     * @param cell   单元格的值（非空单元格）
+     */
+    void setValue(Object entity, ExcelCellValue cell) throws Exception {
+        if (mapper != null) {
+            mapper.setValue(entity, index, cell);
+        } else if (parents.length == 0) {
+            converter.setValue(entity, accessor, cell);
+        } else {
+            converter.setValue(createOwner(entity), accessor, cell);
+        }
+    }
+
+    /**
+     * 获取字段所在的嵌套对象，为null的嵌套对象创建后赋值
+     */
+    private Object createOwner(Object entity) throws Exception {
+        Object owner = entity;
+        for (int i = 0; i < parents.length; i++) {
+            Object next = parents[i].get(owner);
+            if (next == null) {
+                next = parentConstructors[i].newInstance();
+                parents[i].set(owner, next);
+            }
+            owner = next;
+        }
+        return owner;
+    }
+
+    /**
+     * 读取实体中该字段的值
+     *
+     * @param entity 实体
+     * @return 字段值
+     */
+    Object getValue(Object entity) {
+        if (mapper != null) {
+            return mapper.getValue(entity, index);
+        }
+        Object owner = entity;
+        for (ExcelAccessor parent : parents) {
+            owner = parent.get(owner);
+            //嵌套对象为null时字段值为空
+            if (owner == null) {
+                return null;
+            }
+        }
+        return accessor.get(owner);
+    }
+
+    /**
+     * 将实体中该字段的值复制到另一个实体，为null的嵌套对象在目标实体中创建；
+     * 日期复制为新对象，其余内置支持的字段类型不可变，直接共享；自定义转换器生成的值无法复制，
+     * 含自定义转换器的实体不缓存导入结果
+     *
+     * @param from 源实体
+     * @param to   目标实体
+     */
+    void copyValue(Object from, Object to) throws Exception {
+        Object value = getValue(from);
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Date) {
+            value = ((Date) value).clone();
+        } else if (value instanceof Calendar) {
+            value = ((Calendar) value).clone();
+        }
+        Object owner = parents.length == 0 ? to : createOwner(to);
+        if (accessor != null) {
+            accessor.set(owner, value);
+        } else {
+            field.set(owner, value);
+        }
+    }
+
+    /**
+     * @return 是否为可不装箱读取的基本数值类型字段（int、short、float、double）
+     */
+    boolean isPrimitiveNumber() {
+        return primitiveNumber;
+    }
+
+    /**
+     * 以double读取基本数值类型字段的值，不装箱
+     *
+     * @param entity 实体
+     * @return 字段值
+     */
+    double getDouble(Object entity) {
+        return mapper != null ? mapper.getDouble(entity, index) : accessor.getDouble(entity);
+    }
+}
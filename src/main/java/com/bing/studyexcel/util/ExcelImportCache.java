@@ -0,0 +1,251 @@
+package com.bing.studyexcel.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToLongFunction;
+
+/**
+ * @Description: 导入结果缓存，按上传文件内容的SHA-256、实体类及导入方式缓存解析结果（含校验报告），
+ * 重复上传同一文件时直接返回缓存结果；同一文件正在解析时，重复的请求等待该次解析完成而不再解析。
+ * 按条目数及缓存的总行数淘汰最久未使用的结果，超过有效期的结果失效。
+ * 缓存的结果按行数估算内存并计入准入控制的占用，占用失败时不缓存；每次返回（含首次导入）的都是结果的副本，
+ * 调用方修改返回的实体不影响缓存。副本只复制内置支持的字段类型，含自定义转换器字段的实体不经过缓存
+ */
+public final class ExcelImportCache {
+
+    /**
+     * 估算缓存内存时每个实体及每个字段的字节数
+     */
+    private static final int ENTITY_BYTES = 16;
+    private static final int FIELD_BYTES = 48;
+
+    private final int maxEntries;
+    private final long maxRows;
+    private final long ttlMillis;
+    /**
+     * 按访问顺序排列，最久未使用的在前，所有访问在该对象上同步
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 已完成条目的总行数
+     */
+    private long totalRows;
+
+    /**
+     * 缓存条目，解析完成前rows为-1
+     */
+    private static final class Entry {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        long rows = -1;
+        long expireAt = Long.MAX_VALUE;
+        /**
+         * 占用的内存及占用时的准入控制，未占用时为0及null
+         */
+        long bytes;
+        ExcelAdmission admission;
+    }
+
+    /**
+     * 加载导入结果
+     */
+    @FunctionalInterface
+    interface Loader<R> {
+        R load() throws Exception;
+    }
+
+    /**
+     * 复制导入结果
+     */
+    @FunctionalInterface
+    interface Copier<R> {
+        R copy(R result) throws Exception;
+    }
+
+    /**
+     * @param maxEntries 最多缓存的结果数
+     * @param maxRows    缓存结果的总行数上限，单个结果超过该行数时不缓存
+     * @param ttlMillis  结果的有效期（毫秒）
+     */
+    public ExcelImportCache(int maxEntries, long maxRows, long ttlMillis) {
+        if (maxEntries <= 0 || maxRows <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("缓存条目数、行数及有效期必须大于0");
+        }
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 计算上传文件内容的SHA-256，顺序读取上传文件，不保留内容
+     *
+     * @param file 上传文件
+     * @return 十六进制摘要
+     */
+    static String hash(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = file.getInputStream()) {
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 获取缓存的导入结果，不存在时由当前线程解析并缓存
+     *
+     * @param key         缓存键
+     * @param entityClass 实体类
+     * @param loader      解析
+     * @param rowCount    从导入结果中获取行数
+     * @param copier      复制导入结果，缓存的结果本身不返回给调用方
+     * @return 导入结果的副本
+     */
+    @SuppressWarnings("unchecked")
+    <R> R get(String key, Class<?> entityClass, Loader<R> loader, ToLongFunction<R> rowCount, Copier<R> copier)
+            throws Exception {
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expireAt < System.currentTimeMillis()) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                owner = true;
+                evict();
+            }
+        }
+        if (!owner) {
+            R result = (R) await(entry.future);
+            ExcelUtil.metrics().importCached(entityClass, rowCount.applyAsLong(result));
+            return copier.copy(result);
+        }
+        R result;
+        try {
+            result = loader.load();
+        } catch (Exception | Error e) {
+            //解析失败不缓存，等待中的请求得到同样的异常
+            synchronized (entries) {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+            }
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        long rows = rowCount.applyAsLong(result);
+        long bytes = rows * (ENTITY_BYTES + (long) ExcelClassMeta.of(entityClass).getFields().size() * FIELD_BYTES);
+        //超过行数上限或内存预算不足时不缓存
+        ExcelAdmission admission = ExcelUtil.admission();
+        boolean reserved = rows <= maxRows && admission.tryReserve(bytes);
+        synchronized (entries) {
+            if (entries.get(key) == entry && reserved) {
+                entry.rows = rows;
+                entry.bytes = bytes;
+                entry.admission = admission;
+                entry.expireAt = System.currentTimeMillis() + ttlMillis;
+                totalRows += rows;
+                evict();
+            } else {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+                if (reserved) {
+                    admission.release(bytes);
+                }
+            }
+        }
+        entry.future.complete(result);
+        return copier.copy(result);
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * 删除过期的结果，再按最久未使用淘汰至条目数及总行数不超过上限
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entries.size() > maxEntries || totalRows > maxRows || entry.expireAt < now) {
+                iterator.remove();
+                discard(entry);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * 移出缓存的条目不再计入总行数，并归还占用的内存
+     */
+    private void discard(Entry entry) {
+        totalRows -= Math.max(entry.rows, 0);
+        if (entry.admission != null) {
+            entry.admission.release(entry.bytes);
+            entry.admission = null;
+        }
+    }
+
+    /**
+     * 清空缓存，正在解析的结果完成后也不再缓存
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                discard(entry);
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return 缓存的结果数（含正在解析的）
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
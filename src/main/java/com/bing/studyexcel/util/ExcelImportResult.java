@@ -0,0 +1,64 @@
+package com.bing.studyexcel.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Description: 导入结果，包含按sheet顺序合并的数据及各sheet的导入情况，校验导入时还包含有误数据行的错误
+ */
+public class ExcelImportResult<T> {
+
+    private final List<T> data;
+    private final List<ExcelSheetReport> sheetReports;
+    private final List<ExcelRowError> errors;
+    /**
+     * 错误数量是否超过上限（超过后停止导入）
+     */
+    private final boolean truncated;
+
+    ExcelImportResult(List<T> data, List<ExcelSheetReport> sheetReports) {
+        this(data, sheetReports, Collections.emptyList(), false);
+    }
+
+    ExcelImportResult(List<T> data, List<ExcelSheetReport> sheetReports, List<ExcelRowError> errors, boolean truncated) {
+        this.data = data;
+        this.sheetReports = Collections.unmodifiableList(sheetReports);
+        this.errors = Collections.unmodifiableList(errors);
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return 导入的数据
+     */
+    public List<T> getData() {
+        return data;
+    }
+
+    /**
+     * @return 各sheet的导入情况，按sheet顺序排列（并行导入时提供，其余方式为空）
+     */
+    public List<ExcelSheetReport> getSheetReports() {
+        return sheetReports;
+    }
+
+    /**
+     * @return 有误数据行的错误，按行顺序排列，这些行不包含在导入的数据中
+     */
+    public List<ExcelRowError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return 是否没有任何错误
+     */
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return 错误数量是否超过上限，为true时导入已提前停止，数据和错误都不完整
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bing.studyexcel.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @Description: 逐个拉取导入实体的迭代器，读取过程中的异常以IllegalStateException抛出，用完需关闭
+ */
+public class ExcelIterator<T> implements Iterator<T>, Closeable {
+
+    private final ExcelEntityReader<T> reader;
+    private final Class<T> entityClass;
+    /**
+     * 开始导入的时间（纳秒），关闭时通知指标监听器
+     */
+    private final long startNanos;
+    private T next;
+    private boolean finished;
+    private boolean closed;
+    private long count;
+    private Exception error;
+
+    ExcelIterator(ExcelEntityReader<T> reader, Class<T> entityClass, long startNanos) {
+        this.reader = reader;
+        this.entityClass = entityClass;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = reader.read();
+            } catch (Exception e) {
+                error = e;
+                finished = true;
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T entity = next;
+        next = null;
+        count++;
+        return entity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        next = null;
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } finally {
+            ExcelUtil.metrics().importFinished(entityClass, count, System.nanoTime() - startNanos, error);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 导入导出各阶段的耗时、行数、字节数及错误数的监听器，通过ExcelUtil.setMetricsListener注册，
+ * 用于对接监控系统（如Micrometer）。所有方法默认不处理，实现需线程安全且不能耗时（在导入导出线程中同步调用），
+ * 耗时单位均为纳秒
+ */
+public interface ExcelMetricsListener {
+
+    /**
+     * 不处理任何事件的监听器
+     */
+    ExcelMetricsListener NONE = new ExcelMetricsListener() {
+    };
+
+    /**
+     * 打开上传的工作簿（落盘、加载或解析目录结构）
+     *
+     * @param fileType 文件类型（xls/xlsx）
+     * @param bytes    文件大小
+     * @param nanos    耗时
+     */
+    default void workbookOpened(String fileType, long bytes, long nanos) {
+    }
+
+    /**
+     * 校验一个sheet的表头并生成绑定计划
+     *
+     * @param entityClass 实体类
+     * @param nanos       耗时
+     */
+    default void headerValidated(Class<?> entityClass, long nanos) {
+    }
+
+    /**
+     * 一批数据行转换为实体（按读取器或转换任务汇总，不逐行通知）
+     *
+     * @param entityClass 实体类
+     * @param rows        行数
+     * @param nanos       转换耗时合计
+     */
+    default void rowsConverted(Class<?> entityClass, long rows, long nanos) {
+    }
+
+    /**
+     * 校验导入时发现有误的数据
+     *
+     * @param entityClass 实体类
+     * @param errors      错误数
+     */
+    default void rowErrors(Class<?> entityClass, long errors) {
+    }
+
+    /**
+     * 一次导入结束
+     *
+     * @param entityClass 实体类
+     * @param rows        导入的实体数
+     * @param nanos       总耗时（迭代器、Stream方式包含调用方处理的时间）
+     * @param error       失败时的异常，成功时为null
+     */
+    default void importFinished(Class<?> entityClass, long rows, long nanos, Throwable error) {
+    }
+
+    /**
+     * 重复上传的文件命中导入结果缓存，未重新解析
+     *
+     * @param entityClass 实体类
+     * @param rows        缓存结果的实体数
+     */
+    default void importCached(Class<?> entityClass, long rows) {
+    }
+
+    /**
+     * 导出时数据写入工作簿（或直接写出时写入输出流）
+     *
+     * @param entityClass 实体类
+     * @param rows        行数
+     * @param nanos       耗时（包含读取数据源的时间）
+     */
+    default void exportRowsWritten(Class<?> entityClass, long rows, long nanos) {
+    }
+
+    /**
+     * 导出时工作簿写出到输出流
+     *
+     * @param fileType 文件类型（xls/xlsx）
+     * @param bytes    写出的字节数
+     * @param nanos    耗时
+     */
+    default void exportFlushed(String fileType, long bytes, long nanos) {
+    }
+
+    /**
+     * 一次导出结束
+     *
+     * @param entityClass 实体类
+     * @param fileType    文件类型（xls/xlsx）
+     * @param nanos       总耗时
+     * @param error       失败时的异常，成功时为null
+     */
+    default void exportFinished(Class<?> entityClass, String fileType, long nanos, Throwable error) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.bing.studyexcel.util;
+
+import java.lang.annotation.*;
+
+/**
+ * @Description: 嵌套对象字段，字段类型中的@Excel字段（含继承的字段）展开为所在类的列，
+ * 导出时嵌套对象为null则这些列为空，导入时按需创建嵌套对象（需有无参构造方法）
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExcelNested {
+
+    /**
+     * 列名前缀，拼接在嵌套对象的@Excel列名之前，如“地址-”，为空时直接使用嵌套对象的列名
+     */
+    String prefix() default "";
+}
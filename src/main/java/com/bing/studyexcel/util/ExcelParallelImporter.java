@@ -0,0 +1,259 @@
+package com.bing.studyexcel.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: 并行导入：多sheet并行解析；或单线程读取数据行、线程池并行转换为实体的流水线导入
+ */
+final class ExcelParallelImporter {
+
+    /**
+     * 默认线程池的线程数，取CPU核数的一半，避免占满Web容器的处理能力
+     */
+    private static final int DEFAULT_POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /**
+     * 默认线程池的任务队列长度，队列满时由调用线程自行解析
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 64;
+    /**
+     * 流水线导入时每个转换任务包含的行数
+     */
+    private static final int CHUNK_SIZE = 256;
+    /**
+     * 流水线导入时同时进行中的转换任务数上限，限制读取线程领先转换线程的行数
+     */
+    private static final int MAX_IN_FLIGHT = 32;
+
+    private ExcelParallelImporter() {
+    }
+
+    /**
+     * 默认线程池，延迟创建
+     */
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = newExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_SIZE, "excel-import-");
+    }
+
+    static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 创建有界线程池，队列满时由调用线程执行任务（即自然限流）
+     *
+     * @param poolSize   线程数
+     * @param queueSize  队列长度
+     * @param namePrefix 线程名前缀
+     * @return 线程池
+     */
+    static ExecutorService newExecutor(int poolSize, int queueSize, String namePrefix) {
+        AtomicInteger threadNum = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 并行导入工作簿中的所有sheet。工作簿数据源不是线程安全的，各sheet在调用线程中逐个打开，
+     * 只有行的解析交给线程池；返回或抛出异常前等待所有sheet的任务结束，调用方随后可以安全地关闭工作簿
+     *
+     * @param workbook    工作簿数据源，由调用方关闭
+     * @param entityClass 实体类
+     * @param executor    执行解析的线程池
+     * @return 按sheet顺序合并的导入结果
+     */
+    static <T> ExcelImportResult<T> importSheets(ExcelWorkbookSource workbook, Class<T> entityClass, Executor executor)
+            throws Exception {
+        //提前构建类元数据，各sheet共用
+        ExcelClassMeta.of(entityClass);
+        int sheetCount = workbook.getSheetCount();
+        List<CompletableFuture<SheetResult<T>>> futures = new ArrayList<>(sheetCount);
+        //某个sheet失败后，其余sheet尽早停止解析
+        AtomicBoolean failed = new AtomicBoolean();
+        Exception openError = null;
+        for (int i = 0; i < sheetCount; i++) {
+            int sheetIndex = i;
+            ExcelEntityReader<T> reader = null;
+            try {
+                reader = new ExcelEntityReader<>(workbook.openSheet(sheetIndex), entityClass);
+                ExcelEntityReader<T> sheetReader = reader;
+                futures.add(CompletableFuture.supplyAsync(() -> importSheet(sheetReader, sheetIndex, failed), executor));
+            } catch (Exception e) {
+                //打开失败或线程池拒绝，未提交的sheet在这里关闭
+                failed.set(true);
+                openError = e;
+                if (reader != null) {
+                    closeQuietly(reader);
+                }
+                break;
+            }
+        }
+        //等待所有任务结束（含失败的），不能在其他sheet仍在读取时关闭工作簿
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, error) -> null).join();
+        if (openError != null) {
+            throw openError;
+        }
+        List<T> dataList = new ArrayList<>();
+        List<ExcelSheetReport> reports = new ArrayList<>(sheetCount);
+        try {
+            for (CompletableFuture<SheetResult<T>> future : futures) {
+                SheetResult<T> result = future.join();
+                dataList.addAll(result.data);
+                reports.add(result.report);
+            }
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+        return new ExcelImportResult<>(dataList, reports);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            //已有异常，忽略关闭失败
+        }
+    }
+
+    /**
+     * 流水线导入：调用线程顺序读取数据行并复制所需的列，线程池按块并行转换为实体
+     *
+     * @param source      行数据源，读取结束后关闭
+     * @param entityClass 实体类
+     * @param executor    执行转换的线程池
+     * @param ordered     是否保持原始行顺序，为false时按转换完成的顺序合并，速度更快
+     * @return 数据列表
+     */
+    static <T> List<T> importRows(ExcelRowSource source, Class<T> entityClass, Executor executor, boolean ordered)
+            throws Exception {
+        List<T> dataList = new ArrayList<>();
+        Deque<CompletableFuture<List<T>>> inFlight = new ArrayDeque<>(MAX_IN_FLIGHT);
+        //转换任务只使用复制的行，关闭读取器（及数据源）后仍可完成
+        try (ExcelEntityReader<T> reader = new ExcelEntityReader<>(source, entityClass)) {
+            List<ExcelRowSnapshot> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (reader.nextDataRow()) {
+                chunk.add(new ExcelRowSnapshot(reader.getRow(), reader.getPlan()));
+                if (chunk.size() == CHUNK_SIZE) {
+                    if (inFlight.size() >= MAX_IN_FLIGHT) {
+                        collect(inFlight, dataList, ordered);
+                    }
+                    inFlight.add(submitChunk(chunk, entityClass, executor));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight.add(submitChunk(chunk, entityClass, executor));
+            }
+            while (!inFlight.isEmpty()) {
+                collect(inFlight, dataList, ordered);
+            }
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            for (CompletableFuture<List<T>> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return dataList;
+    }
+
+    /**
+     * 提交一块数据行的转换任务
+     */
+    private static <T> CompletableFuture<List<T>> submitChunk(List<ExcelRowSnapshot> chunk, Class<T> entityClass,
+                                                              Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            List<T> entities = new ArrayList<>(chunk.size());
+            try {
+                for (ExcelRowSnapshot row : chunk) {
+                    T entity = entityClass.cast(row.getPlan().getMeta().newInstance());
+                    row.getPlan().apply(entity, row);
+                    entities.add(entity);
+                }
+            } catch (Exception e) {
+                throw new SheetException(e);
+            }
+            ExcelUtil.metrics().rowsConverted(entityClass, entities.size(), System.nanoTime() - start);
+            return entities;
+        }, executor);
+    }
+
+    /**
+     * 收集至少一个转换任务的结果：保持顺序时等待最早提交的任务，否则收集所有已完成的任务
+     */
+    private static <T> void collect(Deque<CompletableFuture<List<T>>> inFlight, List<T> dataList, boolean ordered) {
+        if (ordered) {
+            dataList.addAll(inFlight.poll().join());
+            return;
+        }
+        CompletableFuture.anyOf(inFlight.toArray(new CompletableFuture[0])).join();
+        Iterator<CompletableFuture<List<T>>> iterator = inFlight.iterator();
+        while (iterator.hasNext()) {
+            CompletableFuture<List<T>> future = iterator.next();
+            if (future.isDone()) {
+                dataList.addAll(future.join());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 取出线程池中任务抛出的原始异常
+     */
+    private static Exception unwrap(CompletionException e) {
+        Throwable cause = e.getCause() instanceof SheetException ? e.getCause().getCause() : e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return e;
+    }
+
+    /**
+     * 解析单个sheet，其他sheet失败后停止
+     */
+    private static <T> SheetResult<T> importSheet(ExcelEntityReader<T> sheetReader, int sheetIndex, AtomicBoolean failed) {
+        long start = System.nanoTime();
+        List<T> dataList = new ArrayList<>();
+        try (ExcelEntityReader<T> reader = sheetReader) {
+            T entity;
+            while (!failed.get() && (entity = reader.read()) != null) {
+                dataList.add(entity);
+            }
+        } catch (Exception e) {
+            failed.set(true);
+            throw new SheetException(e);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new SheetResult<>(dataList, new ExcelSheetReport(sheetIndex, dataList.size(), elapsedMillis));
+    }
+
+    private static final class SheetResult<T> {
+        private final List<T> data;
+        private final ExcelSheetReport report;
+
+        private SheetResult(List<T> data, ExcelSheetReport report) {
+            this.data = data;
+            this.report = report;
+        }
+    }
+
+    /**
+     * 在线程池中传递解析异常
+     */
+    private static final class SheetException extends RuntimeException {
+        private SheetException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: Excel中的一行数据
+ */
+interface ExcelRow {
+
+    /**
+     * @return 所在sheet的编号（从0开始）
+     */
+    int getSheetIndex();
+
+    /**
+     * @return 在sheet中的行号（从0开始）
+     */
+    int getRowNum();
+
+    /**
+     * @return 单元格数，即最后一个单元格的列编号加1
+     */
+    int getCellCount();
+
+    /**
+     * 获取某一列的原生值
+     *
+     * @param column 列编号，小于getCellCount()
+     * @return 单元格的值，可能为null
+     */
+    ExcelCellValue getCell(int column);
+}
@@ -0,0 +1,59 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 导入校验时某一行数据的错误
+ */
+public class ExcelRowError {
+
+    /**
+     * sheet编号（从0开始）
+     */
+    private final int sheetIndex;
+    /**
+     * 行号（从1开始，与Excel中显示的一致）
+     */
+    private final int rowNum;
+    /**
+     * 列编号（从0开始），与整行有关的错误为-1
+     */
+    private final int column;
+    /**
+     * 列的表头，与整行有关的错误为null
+     */
+    private final String header;
+    private final String message;
+
+    ExcelRowError(int sheetIndex, int rowNum, int column, String header, String message) {
+        this.sheetIndex = sheetIndex;
+        this.rowNum = rowNum;
+        this.column = column;
+        this.header = header;
+        this.message = message;
+    }
+
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelRowError(sheetIndex=" + sheetIndex + ", rowNum=" + rowNum + ", column=" + column
+                + ", header=" + header + ", message=" + message + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 实体与Excel行之间的映射器，由注解处理器在编译期为@Excel实体生成（类名为实体类名加ExcelMapper），
+ * 存在时导入导出直接调用实体的构造方法及getter/setter，不再使用反射
+ */
+public interface ExcelRowMapper<T> {
+
+    /**
+     * @return 字段对应的列名，按字段声明顺序，下标即为字段编号
+     */
+    String[] getNames();
+
+    /**
+     * @return 新的实体
+     */
+    T newInstance();
+
+    /**
+     * 将单元格的值赋值给实体字段
+     *
+     * @param entity 实体
+     * @param index  字段编号
+     * @param cell   单元格的值（非空单元格）
+     */
+    void setValue(T entity, int index, ExcelCellValue cell) throws Exception;
+
+    /**
+     * 读取实体字段的值
+     *
+     * @param entity 实体
+     * @param index  字段编号
+     * @return 字段值
+     */
+    Object getValue(T entity, int index);
+
+    /**
+     * 以double读取基本数值类型（int、short、float、double）字段的值，不装箱
+     *
+     * @param entity 实体
+     * @param index  字段编号
+     * @return 字段值
+     */
+    double getDouble(T entity, int index);
+}
@@ -0,0 +1,51 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 数据行的快照，只复制绑定计划用到的列，可交给其他线程转换
+ */
+final class ExcelRowSnapshot implements ExcelRow {
+
+    private final int sheetIndex;
+    private final int rowNum;
+    private final ExcelCellValue[] cells;
+    /**
+     * 该行使用的绑定计划
+     */
+    private final ExcelBindingPlan plan;
+
+    ExcelRowSnapshot(ExcelRow row, ExcelBindingPlan plan) {
+        this.sheetIndex = row.getSheetIndex();
+        this.rowNum = row.getRowNum();
+        this.plan = plan;
+        this.cells = new ExcelCellValue[row.getCellCount()];
+        for (int column : plan.getColumns()) {
+            if (column < cells.length) {
+                cells[column] = row.getCell(column).copy();
+            }
+        }
+    }
+
+    ExcelBindingPlan getPlan() {
+        return plan;
+    }
+
+    @Override
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    @Override
+    public ExcelCellValue getCell(int column) {
+        return cells[column];
+    }
+}
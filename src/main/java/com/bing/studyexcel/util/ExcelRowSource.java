@@ -0,0 +1,34 @@
+package com.bing.studyexcel.util;
+
+import java.io.Closeable;
+
+/**
+ * @Description: 按行读取Excel数据的数据源，依次遍历各sheet的各行，自身即为当前行
+ */
+interface ExcelRowSource extends ExcelRow, Closeable {
+
+    /**
+     * 移动到下一行
+     *
+     * @return 没有更多数据时返回false
+     */
+    boolean nextRow() throws Exception;
+
+    /**
+     * 获取当前行某一列的原生值，返回的对象会被复用，移动到下一行后失效
+     *
+     * @param column 列编号，小于getCellCount()
+     * @return 单元格的值
+     */
+    @Override
+    ExcelCellValue getCell(int column);
+
+    /**
+     * 设置当前sheet后续数据行需要读取的列（列投影），其余列可不解析、按空单元格返回，
+     * 单元格数也可只统计到需要读取的最后一列之后，移动到下一个sheet后失效。默认读取所有列
+     *
+     * @param columns 需要读取的列编号
+     */
+    default void selectColumns(int[] columns) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.bing.studyexcel.util;
+
+/**
+ * @Description: 单个sheet的导入情况
+ */
+public class ExcelSheetReport {
+
+    /**
+     * sheet编号（从0开始）
+     */
+    private final int sheetIndex;
+    /**
+     * 导入的数据行数
+     */
+    private final int rowCount;
+    /**
+     * 解析耗时（毫秒）
+     */
+    private final long elapsedMillis;
+
+    ExcelSheetReport(int sheetIndex, int rowCount, long elapsedMillis) {
+        this.sheetIndex = sheetIndex;
+        this.rowCount = rowCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelSheetReport(sheetIndex=" + sheetIndex + ", rowCount=" + rowCount + ", elapsedMillis=" + elapsedMillis + ")";
+    }
+}
@@ -0,0 +1,232 @@
+package com.bing.studyexcel.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * @Description: 顺序向工作簿写入数据行，每个sheet写满sheetSize行数据后自动新建sheet，
+ * 单页行数不超过文件格式的最大行数（xls为65536行、xlsx为1048576行，均含表头）
+ */
+final class ExcelSheetWriter<T> {
+
+    /**
+     * Excel数值的最大精确位数为15位
+     */
+    private static final double MAX_EXACT_NUMBER = 999999999999999D;
+    /**
+     * sheet名的最大长度
+     */
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final Workbook workbook;
+    private final String title;
+    private final int sheetSize;
+    private final List<ExcelField> fields;
+    /**
+     * 各列的样式，无格式的列为null
+     */
+    private final CellStyle[] styles;
+    private Sheet sheet;
+    private int sheetCount;
+    /**
+     * 分页后已使用的sheet名（小写）
+     */
+    private final Set<String> sheetNames = new HashSet<>();
+    /**
+     * 当前sheet的下一行行号
+     */
+    private int rowNum;
+    /**
+     * 已写入的数据行数
+     */
+    private long rowCount;
+
+    ExcelSheetWriter(Workbook workbook, String title, int sheetSize, Class<?> clazz) throws Exception {
+        this.workbook = workbook;
+        this.title = title;
+        this.fields = ExcelClassMeta.of(clazz).getOrderedFields();
+        SpreadsheetVersion version = workbook instanceof HSSFWorkbook ? SpreadsheetVersion.EXCEL97 : SpreadsheetVersion.EXCEL2007;
+        checkColumns(fields.size(), version);
+        this.sheetSize = limitSheetSize(sheetSize, version);
+        this.styles = new CellStyle[fields.size()];
+        ExcelStyleRegistry registry = new ExcelStyleRegistry(workbook);
+        for (int k = 0; k < fields.size(); k++) {
+            String format = columnFormat(fields.get(k));
+            if (format != null) {
+                styles[k] = registry.getStyle(format);
+            }
+        }
+        //即使没有数据也导出带表头的空表
+        nextSheet();
+    }
+
+    /**
+     * 写入一行数据
+     *
+     * @param item 数据
+     */
+    void write(T item) throws Exception {
+        if (rowNum > sheetSize) {
+            nextSheet();
+        }
+        Row row = sheet.createRow(rowNum++);
+        for (int k = 0; k < fields.size(); k++) {
+            ExcelField field = fields.get(k);
+            Cell cell;
+            if (field.isPrimitiveNumber()) {
+                //基本数值类型字段不装箱直接写入
+                cell = row.createCell(k);
+                cell.setCellValue(field.getDouble(item));
+            } else {
+                Object obj = field.getValue(item);
+                //空值不创建单元格
+                if (obj == null) {
+                    continue;
+                }
+                cell = row.createCell(k);
+                setCellValue(cell, obj);
+            }
+            if (styles[k] != null) {
+                cell.setCellStyle(styles[k]);
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * 按值的类型写入单元格，数值、布尔、日期写为原生类型，其余写为文本
+     *
+     * @param cell 单元格
+     * @param obj  值（非空）
+     */
+    private static void setCellValue(Cell cell, Object obj) {
+        if (obj instanceof Number) {
+            if (isBeyondPrecision((Number) obj)) {
+                cell.setCellValue(obj.toString());
+            } else {
+                cell.setCellValue(((Number) obj).doubleValue());
+            }
+        } else if (obj instanceof Boolean) {
+            cell.setCellValue((Boolean) obj);
+        } else if (obj instanceof Date) {
+            cell.setCellValue((Date) obj);
+        } else if (obj instanceof Calendar) {
+            cell.setCellValue((Calendar) obj);
+        } else {
+            cell.setCellValue(obj.toString());
+        }
+    }
+
+    /**
+     * 列的单元格格式：注解指定的格式，日期列默认为yyyy-MM-dd HH:mm:ss
+     *
+     * @param field 字段
+     * @return 格式，无格式时返回null
+     */
+    static String columnFormat(ExcelField field) {
+        if (StringUtils.isNotEmpty(field.getFormat())) {
+            return field.getFormat();
+        } else if (Date.class.isAssignableFrom(field.getType()) || Calendar.class.isAssignableFrom(field.getType())) {
+            return ExcelUtil.DEFAULT_DATE_FORMAT;
+        }
+        return null;
+    }
+
+    /**
+     * 单页数据行数不能超过文件格式的最大行数（去掉表头行）
+     *
+     * @param sheetSize 单页行数
+     * @param version   文件格式
+     * @return 单页实际行数
+     */
+    static int limitSheetSize(int sheetSize, SpreadsheetVersion version) {
+        return Math.min(sheetSize, version.getMaxRows() - ExcelUtil.EXCEL_HEAD_ROW_NUM);
+    }
+
+    /**
+     * 校验列数不超过文件格式的最大列数（xls为256列、xlsx为16384列）
+     *
+     * @param columns 列数
+     * @param version 文件格式
+     */
+    static void checkColumns(int columns, SpreadsheetVersion version) throws Exception {
+        if (columns > version.getMaxColumns()) {
+            String fileType = version == SpreadsheetVersion.EXCEL97 ? ExcelUtil.EXCEL_XLS : ExcelUtil.EXCEL_XLSX;
+            throw new Exception(fileType + "文件最多支持" + version.getMaxColumns() + "列，导出的字段有" + columns + "个");
+        }
+    }
+
+    /**
+     * 超过15位有效数字的整数Excel无法精确表示，需按文本写入
+     *
+     * @param number 数值
+     * @return 是否超出精度
+     */
+    static boolean isBeyondPrecision(Number number) {
+        return (number instanceof Long || number instanceof BigInteger || number instanceof BigDecimal)
+                && Math.abs(number.doubleValue()) > MAX_EXACT_NUMBER;
+    }
+
+    /**
+     * @return 已写入的数据行数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 分页时的sheet名，为title加页码。超过31个字符时截短title，
+     * 截短后与已使用的名称重复（不区分大小写）时继续截短
+     *
+     * @param title 原sheet名
+     * @param index 页码，从0开始
+     * @param used  已使用的sheet名（小写），生成的名称会加入其中
+     * @return sheet名
+     */
+    static String sheetName(String title, int index, Set<String> used) {
+        String suffix = Integer.toString(index);
+        for (int length = Math.min(title.length(), MAX_SHEET_NAME_LENGTH - suffix.length()); length >= 0; length--) {
+            String name = title.substring(0, length) + suffix;
+            if (used.add(name.toLowerCase(Locale.ROOT))) {
+                WorkbookUtil.validateSheetName(name);
+                return name;
+            }
+        }
+        throw new IllegalArgumentException("无法为“" + title + "”生成不重复的sheet名");
+    }
+
+    /**
+     * 新建sheet并写入表头，分页时sheet名为title加页码
+     */
+    private void nextSheet() {
+        //设置sheet名
+        if (sheetCount == 1) {
+            workbook.setSheetName(workbook.getSheetIndex(sheet), sheetName(title, 0, sheetNames));
+        }
+        sheet = workbook.createSheet(sheetCount == 0 ? title : sheetName(title, sheetCount, sheetNames));
+        sheetCount++;
+        rowNum = 0;
+        Row row = sheet.createRow(rowNum++);
+        //设置表头
+        for (int j = 0; j < fields.size(); j++) {
+            Cell cell = row.createCell(j);
+            cell.setCellValue(fields.get(j).getName());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: 工作簿内按格式复用的单元格样式，避免逐个单元格创建样式（xls最多只能有4000个样式）
+ */
+final class ExcelStyleRegistry {
+
+    private final Workbook workbook;
+    private final DataFormat dataFormat;
+    /**
+     * 格式与样式的映射
+     */
+    private final Map<String, CellStyle> styles = new HashMap<>(16);
+
+    ExcelStyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+    }
+
+    /**
+     * 获取指定格式的样式，不存在时创建
+     *
+     * @param format 格式，如yyyy-MM-dd
+     * @return 样式
+     */
+    CellStyle getStyle(String format) {
+        CellStyle style = styles.get(format);
+        if (style == null) {
+            style = workbook.createCellStyle();
+            style.setDataFormat(dataFormat.getFormat(format));
+            styles.put(format, style);
+        }
+        return style;
+    }
+}
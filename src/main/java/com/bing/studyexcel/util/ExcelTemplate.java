@@ -0,0 +1,409 @@
+package com.bing.studyexcel.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * @Description: 导出模板（xlsx），解析一次后不可变，可在多次导出间共享。
+ * 模板中某一行的单元格写为“${列名}”作为数据行占位，该行之前的内容（表头、列宽、合并单元格等）原样保留，
+ * 数据从占位行开始逐行写入，各列沿用占位单元格的样式及占位行的行高；占位行中没有占位符的单元格不重复写入，
+ * 占位行之后不能有其他行
+ */
+public final class ExcelTemplate {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private static final Pattern SHEET_ENTRY = Pattern.compile("xl/worksheets/sheet\\d+\\.xml");
+    private static final Pattern ROW = Pattern.compile("<row\\b([^>]*?)(/>|>(.*?)</row>)", Pattern.DOTALL);
+    private static final Pattern CELL = Pattern.compile("<c\\b([^>]*?)(/>|>(.*?)</c>)", Pattern.DOTALL);
+    private static final Pattern VALUE = Pattern.compile("<v>(.*?)</v>", Pattern.DOTALL);
+    private static final Pattern INLINE_TEXT = Pattern.compile("<t\\b[^>]*>(.*?)</t>", Pattern.DOTALL);
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{(.+)}");
+    private static final Pattern DIMENSION = Pattern.compile("<dimension\\b[^>]*/>");
+    private static final Pattern CALC_CHAIN_OVERRIDE = Pattern.compile("<Override\\b[^>]*?/xl/calcChain\\.xml[^>]*/>");
+    private static final Pattern CALC_CHAIN_RELATIONSHIP = Pattern.compile("<Relationship\\b[^>]*?calcChain\\.xml[^>]*/>");
+    private static final String CALC_CHAIN = "xl/calcChain.xml";
+
+    private static final Pattern ENTITY = Pattern.compile("&(#[xX][0-9a-fA-F]+|#[0-9]+|lt|gt|quot|apos|amp);");
+
+    /**
+     * 缓存的最大模板数量，超出后淘汰最久未使用的模板
+     */
+    private static final int MAX_CACHE_SIZE = 64;
+    /**
+     * 按文件缓存的模板（LRU），文件修改后重新解析
+     */
+    private static final Map<String, ExcelTemplate> CACHE =
+            Collections.synchronizedMap(new LinkedHashMap<String, ExcelTemplate>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ExcelTemplate> eldest) {
+                    return size() > MAX_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * 占位sheet在压缩包中的路径
+     */
+    private final String sheetEntry;
+    /**
+     * 占位sheet中占位行之前的XML
+     */
+    private final String sheetPrefix;
+    /**
+     * 占位sheet中sheetData结束及之后的XML
+     */
+    private final String sheetSuffix;
+    /**
+     * 占位行的行号（从0开始）
+     */
+    private final int dataRowNum;
+    /**
+     * 占位行除行号外的属性（行高、样式等），每个数据行沿用
+     */
+    private final String rowAttributes;
+    /**
+     * 列名与占位单元格的映射
+     */
+    private final Map<String, Column> columns;
+    /**
+     * 其余文件原样输出
+     */
+    private final Map<String, byte[]> entries;
+    private final long lastModified;
+
+    /**
+     * 占位单元格
+     */
+    static final class Column {
+        /**
+         * 列编号（从0开始）
+         */
+        final int index;
+        /**
+         * 样式编号
+         */
+        final int styleId;
+
+        Column(int index, int styleId) {
+            this.index = index;
+            this.styleId = styleId;
+        }
+    }
+
+    private ExcelTemplate(String sheetEntry, String sheetPrefix, String sheetSuffix, int dataRowNum, String rowAttributes,
+                          Map<String, Column> columns, Map<String, byte[]> entries, long lastModified) {
+        this.sheetEntry = sheetEntry;
+        this.sheetPrefix = sheetPrefix;
+        this.sheetSuffix = sheetSuffix;
+        this.dataRowNum = dataRowNum;
+        this.rowAttributes = rowAttributes;
+        this.columns = columns;
+        this.entries = entries;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 获取模板文件解析后的模板，同一文件只解析一次，文件修改后重新解析
+     *
+     * @param file 模板文件（xlsx）
+     * @return 模板
+     */
+    public static ExcelTemplate of(File file) throws Exception {
+        if (file == null || !file.isFile()) {
+            throw new FileNotFoundException("模板文件不存在");
+        }
+        String key = file.getCanonicalPath();
+        ExcelTemplate template = CACHE.get(key);
+        long lastModified = file.lastModified();
+        if (template == null || template.lastModified != lastModified) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                template = parse(in, lastModified);
+            }
+            CACHE.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * 解析模板，不缓存，由调用方保留返回的模板重复使用
+     *
+     * @param in 模板（xlsx）输入流，由调用方关闭
+     * @return 模板
+     */
+    public static ExcelTemplate read(InputStream in) throws Exception {
+        return parse(in, 0);
+    }
+
+    private static ExcelTemplate parse(InputStream in, long lastModified) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                entries.put(entry.getName(), readFully(zip));
+            }
+        }
+        if (!entries.containsKey("xl/workbook.xml")) {
+            throw new IOException("模板只支持xlsx文件");
+        }
+        List<String> sharedStrings = readSharedStrings(entries.get("xl/sharedStrings.xml"));
+        for (Map.Entry<String, byte[]> sheet : entries.entrySet()) {
+            if (!SHEET_ENTRY.matcher(sheet.getKey()).matches()) {
+                continue;
+            }
+            String xml = new String(sheet.getValue(), StandardCharsets.UTF_8);
+            ExcelTemplate template = parseSheet(sheet.getKey(), xml, sharedStrings, entries, lastModified);
+            if (template != null) {
+                return template;
+            }
+        }
+        throw new Exception("模板中没有“${列名}”格式的数据行占位");
+    }
+
+    /**
+     * 在sheet中查找占位行
+     *
+     * @return 模板，sheet中没有占位行时返回null
+     */
+    private static ExcelTemplate parseSheet(String sheetEntry, String xml, List<String> sharedStrings,
+                                            Map<String, byte[]> entries, long lastModified) throws Exception {
+        int dataStart = xml.indexOf("<sheetData>");
+        int dataEnd = xml.indexOf("</sheetData>");
+        if (dataStart < 0 || dataEnd < 0) {
+            return null;
+        }
+        Matcher row = ROW.matcher(xml).region(dataStart, dataEnd);
+        int rowNum = -1;
+        while (row.find()) {
+            String attributes = row.group(1);
+            String ref = attribute(attributes, "r");
+            rowNum = ref == null ? rowNum + 1 : Integer.parseInt(ref) - 1;
+            Map<String, Column> columns = row.group(3) == null
+                    ? Collections.emptyMap() : parseColumns(row.group(3), sharedStrings);
+            if (columns.isEmpty()) {
+                continue;
+            }
+            if (ROW.matcher(xml).region(row.end(), dataEnd).find()) {
+                throw new Exception("模板中数据行占位之后不能有其他行");
+            }
+            //行号、列范围由数据行重新生成
+            String rowAttributes = attributes.replaceAll("\\s(r|spans)=\"[^\"]*\"", "");
+            Map<String, byte[]> others = new LinkedHashMap<>(entries);
+            others.remove(sheetEntry);
+            removeCalcChain(others);
+            String prefix = DIMENSION.matcher(xml.substring(0, row.start())).replaceFirst("");
+            return new ExcelTemplate(sheetEntry, prefix, xml.substring(dataEnd), rowNum, rowAttributes,
+                    Collections.unmodifiableMap(columns), Collections.unmodifiableMap(others), lastModified);
+        }
+        return null;
+    }
+
+    /**
+     * 读取行中的占位单元格
+     *
+     * @return 列名与占位单元格的映射，没有占位时为空
+     */
+    private static Map<String, Column> parseColumns(String rowXml, List<String> sharedStrings) throws Exception {
+        Map<String, Column> columns = new LinkedHashMap<>();
+        Matcher cell = CELL.matcher(rowXml);
+        int column = -1;
+        while (cell.find()) {
+            String attributes = cell.group(1);
+            String ref = attribute(attributes, "r");
+            column = ref == null ? column + 1 : XlsxStreamRowSource.columnIndex(ref);
+            String text = cellText(attribute(attributes, "t"), cell.group(3), sharedStrings);
+            Matcher placeholder = text == null ? null : PLACEHOLDER.matcher(text.trim());
+            if (placeholder == null || !placeholder.matches()) {
+                continue;
+            }
+            String style = attribute(attributes, "s");
+            Column previous = columns.put(placeholder.group(1),
+                    new Column(column, style == null ? 0 : Integer.parseInt(style)));
+            if (previous != null) {
+                throw new Exception("模板中存在重复的占位“" + placeholder.group(1) + "”");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @return 单元格的文本，非文本单元格返回null
+     */
+    private static String cellText(String type, String content, List<String> sharedStrings) {
+        if (content == null) {
+            return null;
+        }
+        if ("inlineStr".equals(type)) {
+            StringBuilder text = new StringBuilder();
+            Matcher t = INLINE_TEXT.matcher(content);
+            while (t.find()) {
+                text.append(t.group(1));
+            }
+            return unescape(text.toString());
+        }
+        Matcher v = VALUE.matcher(content);
+        if (!v.find()) {
+            return null;
+        }
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(v.group(1).trim());
+            return index < sharedStrings.size() ? sharedStrings.get(index) : null;
+        }
+        return "str".equals(type) ? unescape(v.group(1)) : null;
+    }
+
+    /**
+     * 读取共享字符串表，富文本的各段合并
+     */
+    private static List<String> readSharedStrings(byte[] xml) throws XMLStreamException {
+        if (xml == null) {
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>();
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
+        try {
+            StringBuilder text = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("si".equals(reader.getLocalName())) {
+                        text = new StringBuilder();
+                    } else if ("t".equals(reader.getLocalName()) && text != null) {
+                        text.append(reader.getElementText());
+                    } else if ("rPh".equals(reader.getLocalName())) {
+                        //跳过注音
+                        skip(reader, "rPh");
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "si".equals(reader.getLocalName())) {
+                    strings.add(text == null ? "" : text.toString());
+                    text = null;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return strings;
+    }
+
+    private static void skip(XMLStreamReader reader, String localName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.END_ELEMENT && localName.equals(reader.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 占位行中的公式等单元格不再输出，删除计算链，由Excel打开时重建
+     */
+    private static void removeCalcChain(Map<String, byte[]> entries) {
+        if (entries.remove(CALC_CHAIN) == null) {
+            return;
+        }
+        replace(entries, "[Content_Types].xml", CALC_CHAIN_OVERRIDE);
+        replace(entries, "xl/_rels/workbook.xml.rels", CALC_CHAIN_RELATIONSHIP);
+    }
+
+    private static void replace(Map<String, byte[]> entries, String name, Pattern pattern) {
+        byte[] content = entries.get(name);
+        if (content != null) {
+            String xml = new String(content, StandardCharsets.UTF_8);
+            entries.put(name, pattern.matcher(xml).replaceAll("").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String attribute(String attributes, String name) {
+        Matcher matcher = Pattern.compile("\\s" + name + "=\"([^\"]*)\"").matcher(attributes);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 还原预定义实体及十进制、十六进制字符引用
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        Matcher matcher = ENTITY.matcher(text);
+        StringBuffer builder = new StringBuffer(text.length());
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String value;
+            if (name.charAt(0) == '#') {
+                boolean hex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+                try {
+                    int codePoint = Integer.parseInt(name.substring(hex ? 2 : 1), hex ? 16 : 10);
+                    value = new String(Character.toChars(codePoint));
+                } catch (IllegalArgumentException e) {
+                    //超出范围的字符引用原样保留
+                    value = matcher.group();
+                }
+            } else if ("lt".equals(name)) {
+                value = "<";
+            } else if ("gt".equals(name)) {
+                value = ">";
+            } else if ("quot".equals(name)) {
+                value = "\"";
+            } else if ("apos".equals(name)) {
+                value = "'";
+            } else {
+                value = "&";
+            }
+            matcher.appendReplacement(builder, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(builder);
+        return builder.toString();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    String getSheetEntry() {
+        return sheetEntry;
+    }
+
+    String getSheetPrefix() {
+        return sheetPrefix;
+    }
+
+    String getSheetSuffix() {
+        return sheetSuffix;
+    }
+
+    int getDataRowNum() {
+        return dataRowNum;
+    }
+
+    String getRowAttributes() {
+        return rowAttributes;
+    }
+
+    Map<String, Column> getColumns() {
+        return columns;
+    }
+
+    Map<String, byte[]> getEntries() {
+        return entries;
+    }
+}
@@ -1,23 +1,34 @@
 package com.bing.studyexcel.util;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
-import java.text.SimpleDateFormat;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @Description: Excel表格导入导出工具
@@ -34,151 +45,582 @@ public class ExcelUtil {
      * 文件类型，xslx格式
      */
     public static final String EXCEL_XLSX = "xlsx";
+    /**
+     * 文件类型，csv格式
+     */
+    public static final String EXCEL_CSV = "csv";
     /**
      * 表头所在行数
      */
-    private static final Integer EXCEL_HEAD_ROW_NUM = 1;
+    static final Integer EXCEL_HEAD_ROW_NUM = 1;
+    /**
+     * 默认日期格式
+     */
+    static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    /**
+     * 自动选择导出方式时，超过该行数的xlsx使用流式导出
+     */
+    public static final int AUTO_STREAMING_ROWS = 100000;
     /**
      * 日志打印
      */
     private static final Logger logger = LoggerFactory.getLogger(ExcelUtil.class);
+    /**
+     * 指标监听器
+     */
+    private static volatile ExcelMetricsListener metricsListener = ExcelMetricsListener.NONE;
+    /**
+     * 导入结果缓存，为null时不缓存
+     */
+    private static volatile ExcelImportCache importCache;
+    /**
+     * 导入的准入控制
+     */
+    private static volatile ExcelAdmission admission = ExcelAdmission.NONE;
+
+    /**
+     * 注册导入导出的指标监听器，为null时不再通知
+     *
+     * @param listener 监听器
+     */
+    public static void setMetricsListener(ExcelMetricsListener listener) {
+        metricsListener = listener == null ? ExcelMetricsListener.NONE : listener;
+    }
+
+    static ExcelMetricsListener metrics() {
+        return metricsListener;
+    }
+
+    static ExcelAdmission admission() {
+        return admission;
+    }
+
+    /**
+     * 设置导入结果缓存，重复上传的相同文件直接返回缓存的结果，为null时不缓存。
+     * 只缓存返回完整结果的导入方法，逐个回调、迭代器及Stream方式不缓存；含自定义转换器字段的实体不缓存
+     *
+     * @param cache 缓存
+     */
+    public static void setImportCache(ExcelImportCache cache) {
+        importCache = cache;
+    }
+
+    /**
+     * 注册导入的准入控制，为null时不做限制
+     *
+     * @param control 准入控制
+     */
+    public static void setAdmission(ExcelAdmission control) {
+        admission = control == null ? ExcelAdmission.NONE : control;
+    }
 
     public static <T> List<T> importExcel(MultipartFile file, Class<T> entityClass)
             throws Exception {
         //检查文件
         checkFile(file);
         //获取工作簿
-        Workbook workbook = getWorkbook(file);
-
-        List<T> dataList = new LinkedList<>();
+        return cachedImport(file, entityClass, "list", false,
+                () -> readAll(new SequentialRowSource(openWorkbook(file)), entityClass), List::size,
+                list -> copyList(list, entityClass));
+    }
 
-        int sheetCount = workbook.getNumberOfSheets();
-        if (sheetCount == 0) {
-            throw new IOException("文件中没有任何数据");
+    /**
+     * 校验导入：数据有误的行不中断导入，记录错误（sheet、行、列、表头、原因）后继续解析，
+     * 返回正确的数据及所有错误，错误数量超过上限时停止导入；表头有误时仍直接抛出异常
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param maxErrors   错误数量上限
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcelValidated(MultipartFile file, Class<T> entityClass, int maxErrors)
+            throws Exception {
+        //检查文件
+        checkFile(file);
+        if (maxErrors <= 0) {
+            throw new Exception("错误数量上限必须大于0");
         }
-        for (int i = 0; i < sheetCount; i++) {
-            Sheet sheet = workbook.getSheetAt(i);
-            if (sheet == null) {
-                continue;
+        return cachedImport(file, entityClass, "validated:" + maxErrors, true, () -> {
+            List<T> dataList = new ArrayList<>();
+            List<ExcelRowError> errors = new ArrayList<>();
+            try (ExcelEntityReader<T> reader = new ExcelEntityReader<>(openStreamingSource(file), entityClass)) {
+                T entity;
+                while ((entity = reader.read(errors, maxErrors)) != null) {
+                    dataList.add(entity);
+                }
             }
-            Object[] heads = null;
-            for (Row row : sheet) {
-                int num = row.getLastCellNum();
-                //第一次进入获取表头，以后跳过表头
-                if (row.getRowNum() < EXCEL_HEAD_ROW_NUM) {
-                    heads = new Object[num];
-                    for (int k = 0; k < num; k++) {
-                        if (row.getCell(k) == null || "".equals(row.getCell(k).toString())){
-                            heads[k] = "";
-                        }
-                        else
-                        {
-                            heads[k] = row.getCell(k);
-                        }
-                    }
-                    //校验表头
-                    checkExcelHead(heads,entityClass);
-                    continue;
+            boolean truncated = errors.size() > maxErrors;
+            if (truncated) {
+                errors = errors.subList(0, maxErrors);
+            }
+            return new ExcelImportResult<>(dataList, Collections.<ExcelSheetReport>emptyList(), errors, truncated);
+        }, result -> result.getData().size(), result -> copyResult(result, entityClass));
+    }
+
+    /**
+     * 多sheet并行导入，各sheet在默认的有界线程池中同时解析（线程数为CPU核数的一半，繁忙时由调用线程解析），
+     * 结果按sheet顺序合并，并返回各sheet的行数和耗时
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcelParallel(MultipartFile file, Class<T> entityClass)
+            throws Exception {
+        return importExcelParallel(file, entityClass, ExcelParallelImporter.defaultExecutor());
+    }
+
+    /**
+     * 多sheet并行导入，各sheet在指定线程池中同时解析，结果按sheet顺序合并，并返回各sheet的行数和耗时
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param executor    执行解析的线程池，建议使用有界线程池，避免与Web容器争抢线程
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcelParallel(MultipartFile file, Class<T> entityClass, Executor executor)
+            throws Exception {
+        //检查文件
+        checkFile(file);
+        return cachedImport(file, entityClass, "parallel", true, () -> {
+            try (ExcelWorkbookSource workbook = openWorkbookSource(file)) {
+                return ExcelParallelImporter.importSheets(workbook, entityClass, executor);
+            }
+        }, result -> result.getData().size(), result -> copyResult(result, entityClass));
+    }
+
+    /**
+     * 流水线导入，调用线程逐行读取数据，默认的有界线程池并行将数据行转换为实体，保持原始行顺序，
+     * 适合转换、校验开销较大的单个大sheet
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @return 数据列表
+     */
+    public static <T> List<T> importExcelPipelined(MultipartFile file, Class<T> entityClass) throws Exception {
+        return importExcelPipelined(file, entityClass, ExcelParallelImporter.defaultExecutor(), true);
+    }
+
+    /**
+     * 流水线导入，调用线程逐行读取数据，指定线程池并行将数据行转换为实体
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param executor    执行转换的线程池
+     * @param ordered     是否保持原始行顺序，为false时按转换完成的顺序返回，速度更快
+     * @return 数据列表
+     */
+    public static <T> List<T> importExcelPipelined(MultipartFile file, Class<T> entityClass, Executor executor,
+                                                   boolean ordered) throws Exception {
+        //检查文件
+        checkFile(file);
+        //无序结果不能作为有序导入的结果
+        return cachedImport(file, entityClass, ordered ? "list" : "unordered", true, () -> {
+            //数据源由流水线的读取器关闭
+            return ExcelParallelImporter.importRows(openStreamingSource(file), entityClass, executor, ordered);
+        }, List::size, list -> copyList(list, entityClass));
+    }
+
+    /**
+     * 流式导入Excel，xlsx文件不构建完整工作簿，逐行解析sheet，内存占用只与共享字符串表和当前行有关；
+     * xls文件按普通方式导入
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @return 数据列表
+     */
+    public static <T> List<T> importExcelStreaming(MultipartFile file, Class<T> entityClass)
+            throws Exception {
+        //检查文件
+        checkFile(file);
+        return cachedImport(file, entityClass, "list", true, () -> readAll(openStreamingSource(file), entityClass),
+                List::size, list -> copyList(list, entityClass));
+    }
+
+    /**
+     * 逐个导入实体，每解析出一个实体即交给consumer处理，不在内存中保留数据列表
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param consumer    实体处理
+     * @return 导入的实体数
+     */
+    public static <T> int importExcel(MultipartFile file, Class<T> entityClass, Consumer<T> consumer)
+            throws Exception {
+        //检查文件
+        checkFile(file);
+        return admittedImport(file, true, entityClass, () -> {
+            int count = 0;
+            try (ExcelEntityReader<T> reader = new ExcelEntityReader<>(openStreamingSource(file), entityClass)) {
+                T entity;
+                while ((entity = reader.read()) != null) {
+                    consumer.accept(entity);
+                    count++;
                 }
-                T entity = entityClass.newInstance();
-                //获得表格某行的值
-                Object[] objects = new Object[num];
-                for (int k = 0; k < num; k++) {
-                    if (row.getCell(k) == null || "".equals(row.getCell(k).toString())){
-                        objects[k] = "";
-                    }
-                    else{
-                        objects[k] = row.getCell(k);
+            }
+            return count;
+        }, Integer::longValue);
+    }
+
+    /**
+     * 分批导入实体，每解析出batchSize个实体即交给consumer处理（如批量入库），最后一批可能不足batchSize
+     *
+     * @param file          文件
+     * @param entityClass   实体类
+     * @param batchSize     每批实体数
+     * @param batchConsumer 批处理
+     * @return 导入的实体数
+     */
+    public static <T> int importExcel(MultipartFile file, Class<T> entityClass, int batchSize,
+                                      Consumer<List<T>> batchConsumer) throws Exception {
+        if (batchSize <= 0) {
+            throw new Exception("每批数据量必须大于0");
+        }
+        //检查文件
+        checkFile(file);
+        return admittedImport(file, true, entityClass, () -> {
+            int count = 0;
+            try (ExcelEntityReader<T> reader = new ExcelEntityReader<>(openStreamingSource(file), entityClass)) {
+                List<T> batch = new ArrayList<>(batchSize);
+                T entity;
+                while ((entity = reader.read()) != null) {
+                    batch.add(entity);
+                    count++;
+                    if (batch.size() == batchSize) {
+                        batchConsumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
                     }
                 }
-                if (heads == null){
-                    throw new IOException("表头为空");
+                if (!batch.isEmpty()) {
+                    batchConsumer.accept(batch);
                 }
-                //给对象赋值
-                setValue(entity, objects, heads);
-                //将对象添加至数据列表
-                dataList.add(entity);
             }
-        }
-        return dataList;
+            return count;
+        }, Integer::longValue);
+    }
+
+    /**
+     * 以迭代器方式导入，调用方逐个拉取实体，用完需关闭
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @return 实体迭代器
+     */
+    public static <T> ExcelIterator<T> iterateExcel(MultipartFile file, Class<T> entityClass) throws Exception {
+        //检查文件
+        checkFile(file);
+        long start = System.nanoTime();
+        return new ExcelIterator<>(new ExcelEntityReader<>(openStreamingSource(file), entityClass), entityClass, start);
     }
 
     /**
-     * 校验表头
-     * @param heads 表头字段
+     * 以Stream方式导入，流为顺序流，用完需关闭（如try-with-resources）
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @return 实体流
      */
-    private static void checkExcelHead(Object[] heads,Class<?>entityClass) throws Exception {
-        //校验表头字段是否存在重复表头
-        if (heads == null || heads.length == 0){
-            throw new Exception("表头为空");
+    public static <T> Stream<T> streamExcel(MultipartFile file, Class<T> entityClass) throws Exception {
+        ExcelIterator<T> iterator = iterateExcel(file, entityClass);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeQuietly(iterator));
+    }
+
+    /**
+     * 以Stream方式分批导入，每个元素为最多batchSize个实体，用完需关闭
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param batchSize   每批实体数
+     * @return 批次流
+     */
+    public static <T> Stream<List<T>> streamExcel(MultipartFile file, Class<T> entityClass, int batchSize) throws Exception {
+        if (batchSize <= 0) {
+            throw new Exception("每批数据量必须大于0");
         }
-        Set<String>headSet = new HashSet<>();
-        int length = heads.length;
-        for (int i = 0; i < length; i++){
-            String content = heads[i].toString();
-            for (int j = i+1;j<length; j++){
-                if (!"".equals(content) && heads[i].equals(heads[j])){
-                    throw new Exception("表头中存在重复字段");
-                }else {
-                    headSet.add(content);
+        ExcelIterator<T> iterator = iterateExcel(file, entityClass);
+        Iterator<List<T>> batches = new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                List<T> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                if (batch.isEmpty()) {
+                    throw new NoSuchElementException();
                 }
+                return batch;
             }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeQuietly(iterator));
+    }
+
+    /**
+     * 导入任务
+     */
+    @FunctionalInterface
+    private interface ImportTask<R> {
+        R run() throws Exception;
+    }
+
+    /**
+     * 设置了导入结果缓存时，按文件内容摘要、实体类及导入方式从缓存获取结果，未命中时经过准入控制执行导入并缓存；
+     * 先计算摘要再落盘，命中时不再保存临时文件，也不占用准入许可
+     *
+     * @param file        文件
+     * @param entityClass 实体类
+     * @param kind        导入方式，结果形式不同的导入方式分别缓存
+     * @param streaming   是否流式解析，用于准入控制估算内存
+     * @param task        导入任务
+     * @param rowCount    从导入结果中获取实体数
+     * @param copier      复制导入结果，缓存时每次返回副本
+     * @return 导入结果
+     */
+    private static <R> R cachedImport(MultipartFile file, Class<?> entityClass, String kind, boolean streaming,
+                                      ImportTask<R> task, ToLongFunction<R> rowCount,
+                                      ExcelImportCache.Copier<R> copier) throws Exception {
+        ExcelImportCache cache = importCache;
+        //含自定义转换器的实体无法保证返回的副本与缓存互不影响，不缓存
+        if (cache == null || !ExcelClassMeta.of(entityClass).isCopyable()) {
+            return admittedImport(file, streaming, entityClass, task, rowCount);
         }
-        //获取@Excel注解的required为true的字段对应的value值（即Excel表必须具备的表头字段）
-        Set<String> headsRequired = getHeadsRequired(entityClass);
-        //校验表头中是否包含所有必须的字段
-        for (String name : headsRequired){
-            if (!headSet.contains(name)){
-                throw new Exception("Excel表头中缺少“"+name+"”字段");
-            }
+        String key = ExcelImportCache.hash(file) + ":" + entityClass.getName() + ":" + kind;
+        return cache.get(key, entityClass, () -> admittedImport(file, streaming, entityClass, task, rowCount), rowCount,
+                copier);
+    }
+
+    /**
+     * 复制实体列表，返回的列表及实体与缓存的结果互不影响
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> copyList(List<T> list, Class<T> entityClass) throws Exception {
+        ExcelClassMeta meta = ExcelClassMeta.of(entityClass);
+        List<T> copy = new ArrayList<>(list.size());
+        for (T entity : list) {
+            copy.add((T) meta.copy(entity));
         }
+        return copy;
+    }
+
+    private static <T> ExcelImportResult<T> copyResult(ExcelImportResult<T> result, Class<T> entityClass) throws Exception {
+        return new ExcelImportResult<>(copyList(result.getData(), entityClass), result.getSheetReports(),
+                result.getErrors(), result.isTruncated());
     }
 
     /**
-     * 获取必须字段名
-     * @param clazz 实体类
-     * @return 必须字段名集合
+     * 经过准入控制执行导入
      */
-    private static Set<String> getHeadsRequired(Class<?> clazz) throws Exception {
-        if (clazz == null){
-            throw new Exception("类不能为空");
+    private static <R> R admittedImport(MultipartFile file, boolean streaming, Class<?> entityClass, ImportTask<R> task,
+                                        ToLongFunction<R> rowCount) throws Exception {
+        return admission.admitImport(file, streaming, () -> measureImport(entityClass, task, rowCount));
+    }
+
+    /**
+     * 执行导入并通知指标监听器导入结果
+     *
+     * @param entityClass 实体类
+     * @param task        导入任务
+     * @param rowCount    从导入结果中获取实体数
+     * @return 导入结果
+     */
+    private static <R> R measureImport(Class<?> entityClass, ImportTask<R> task, ToLongFunction<R> rowCount)
+            throws Exception {
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = task.run();
+        } catch (Exception | Error e) {
+            metricsListener.importFinished(entityClass, 0, System.nanoTime() - start, e);
+            throw e;
         }
-        Field[] fields = clazz.getDeclaredFields();
-        if (fields.length == 0){
-            throw new Exception(clazz.getName() + " 类属性为空");
+        metricsListener.importFinished(entityClass, rowCount.applyAsLong(result), System.nanoTime() - start, null);
+        return result;
+    }
+
+    /**
+     * 以指定的分隔符、字符集导入CSV文件，表头及字段校验与Excel导入一致
+     *
+     * @param file        CSV文件
+     * @param entityClass 实体类
+     * @param delimiter   分隔符
+     * @param charset     字符集，为null时自动检测（UTF-8/GBK）
+     * @return 数据列表
+     */
+    public static <T> List<T> importCsv(MultipartFile file, Class<T> entityClass, char delimiter, Charset charset)
+            throws Exception {
+        //检查文件
+        checkFile(file);
+        return cachedImport(file, entityClass, "csv:" + delimiter + ":" + charset, true,
+                () -> readAll(new SequentialRowSource(openCsv(file, delimiter, charset)), entityClass), List::size,
+                list -> copyList(list, entityClass));
+    }
+
+    /**
+     * 打开流式行数据源，依次读取各sheet
+     *
+     * @param file 文件
+     * @return 行数据源
+     */
+    private static ExcelRowSource openStreamingSource(MultipartFile file) throws Exception {
+        return new SequentialRowSource(openWorkbookSource(file));
+    }
+
+    /**
+     * 打开工作簿数据源，xlsx文件落盘后按sheet逐行解析（关闭时删除临时文件），xls文件按普通方式加载
+     *
+     * @param file 文件
+     * @return 工作簿数据源
+     */
+    private static ExcelWorkbookSource openWorkbookSource(MultipartFile file) throws Exception {
+        if (EXCEL_CSV.equals(getFileType(file))) {
+            return openCsv(file, ',', null);
         }
-        Set<String>nameSet = new HashSet<>();
-        for (Field field : fields){
-            if (field.getAnnotation(Excel.class)!= null && field.getAnnotation(Excel.class).required()){
-                String value = field.getAnnotation(Excel.class).value();
-                if (StringUtils.isEmpty(value)){
-                    throw new Exception(clazz.getName() + " 类的"+field.getName()+"字段的@Excel注解的value值为空或空串");
-                }else {
-                    nameSet.add(value);
-                }
+        if (!EXCEL_XLSX.equals(getFileType(file))) {
+            return openWorkbook(file);
+        }
+        //先落盘，按文件随机访问zip包，避免整个压缩包读入内存
+        long start = System.nanoTime();
+        File tempFile = spoolToTempFile(file);
+        try {
+            ExcelWorkbookSource source = new XlsxStreamWorkbookSource(tempFile, true);
+            metricsListener.workbookOpened(EXCEL_XLSX, file.getSize(), System.nanoTime() - start);
+            return source;
+        } catch (Exception e) {
+            deleteTempFile(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭资源，忽略异常
+     *
+     * @param closeable 资源
+     */
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.warn("资源关闭失败", e);
+        }
+    }
+
+    /**
+     * 读取数据源中的全部实体
+     *
+     * @param source      行数据源
+     * @param entityClass 实体类
+     * @return 数据列表
+     */
+    private static <T> List<T> readAll(ExcelRowSource source, Class<T> entityClass) throws Exception {
+        List<T> dataList = new LinkedList<>();
+        try (ExcelEntityReader<T> reader = new ExcelEntityReader<>(source, entityClass)) {
+            T entity;
+            while ((entity = reader.read()) != null) {
+                //将对象添加至数据列表
+                dataList.add(entity);
             }
         }
-        return nameSet;
+        return dataList;
     }
 
     /**
-     * 获取工作簿
+     * 将上传文件保存为临时文件，容器已落盘的上传文件（超过spring.servlet.multipart.file-size-threshold）直接移动，不再复制
      *
      * @param file 文件
-     * @return workbook
+     * @return 临时文件
      */
-    private static Workbook getWorkbook(MultipartFile file) throws IOException {
+    private static File spoolToTempFile(MultipartFile file) throws IOException {
+        File tempFile = File.createTempFile("excel-import-", "." + getFileType(file));
+        try {
+            file.transferTo(tempFile);
+        } catch (IOException | RuntimeException e) {
+            deleteTempFile(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * 删除临时文件
+     *
+     * @param tempFile 临时文件
+     */
+    static void deleteTempFile(File tempFile) {
+        if (tempFile.exists() && !tempFile.delete()) {
+            logger.warn("临时文件删除失败：{}", tempFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 获取工作簿：上传文件先落盘，xlsx通过OPCPackage按文件随机访问zip包，xls通过NPOIFSFileSystem按文件通道读取，
+     * 不经过输入流将整个文件读入内存（关闭数据源时释放文件并删除临时文件）；CSV没有工作簿结构，按行流式读取
+     *
+     * @param file 文件
+     * @return 工作簿数据源
+     */
+    private static ExcelWorkbookSource openWorkbook(MultipartFile file) throws Exception {
         String fileType = getFileType(file);
         if (StringUtils.isEmpty(fileType)) {
             throw new IOException("文件类型不明确");
         }
-        if (EXCEL_XLS.equals(fileType)) {
-            return new HSSFWorkbook(file.getInputStream());
-        } else if (EXCEL_XLSX.equals(fileType)) {
-            return new XSSFWorkbook(file.getInputStream());
-        } else {
+        if (EXCEL_CSV.equals(fileType)) {
+            return openCsv(file, ',', null);
+        }
+        if (!EXCEL_XLS.equals(fileType) && !EXCEL_XLSX.equals(fileType)) {
             throw new IOException("不支持的文件类型");
         }
+        long start = System.nanoTime();
+        File tempFile = spoolToTempFile(file);
+        Closeable resource = null;
+        try {
+            Workbook workbook;
+            if (EXCEL_XLS.equals(fileType)) {
+                NPOIFSFileSystem fileSystem = new NPOIFSFileSystem(tempFile);
+                resource = fileSystem::close;
+                workbook = new HSSFWorkbook(fileSystem.getRoot(), false);
+            } else {
+                OPCPackage pkg = OPCPackage.open(tempFile.getPath(), PackageAccess.READ);
+                //只读打开，放弃修改并关闭
+                resource = pkg::revert;
+                workbook = new XSSFWorkbook(pkg);
+            }
+            PoiWorkbookSource source = new PoiWorkbookSource(workbook, resource, tempFile);
+            metricsListener.workbookOpened(fileType, file.getSize(), System.nanoTime() - start);
+            return source;
+        } catch (Exception e) {
+            if (resource != null) {
+                closeQuietly(resource);
+            }
+            deleteTempFile(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 打开CSV数据源，上传文件先落盘（关闭数据源时删除临时文件）
+     *
+     * @param file      文件
+     * @param delimiter 分隔符
+     * @param charset   字符集，为null时自动检测
+     * @return 数据源
+     */
+    private static ExcelWorkbookSource openCsv(MultipartFile file, char delimiter, Charset charset) throws IOException {
+        long start = System.nanoTime();
+        File tempFile = spoolToTempFile(file);
+        try {
+            ExcelWorkbookSource source = new CsvWorkbookSource(tempFile, true, delimiter, charset);
+            metricsListener.workbookOpened(EXCEL_CSV, file.getSize(), System.nanoTime() - start);
+            return source;
+        } catch (IOException | RuntimeException e) {
+            deleteTempFile(tempFile);
+            throw e;
+        }
     }
 
     /**
@@ -212,272 +654,477 @@ public class ExcelUtil {
         String extension = FilenameUtils.getExtension(originalFilename);
         if (StringUtils.isEmpty(extension)) {
             throw new IOException(originalFilename + "文件类型不明");
-        } else if (!extension.equals(EXCEL_XLS) && !extension.equals(EXCEL_XLSX)) {
-            throw new IOException(originalFilename + "不是Excel文件");
+        } else if (!extension.equals(EXCEL_XLS) && !extension.equals(EXCEL_XLSX) && !extension.equals(EXCEL_CSV)) {
+            throw new IOException(originalFilename + "不是Excel或CSV文件");
         }
     }
 
     /**
-     * 给对象赋值
+     * 导出Excel
+     *
+     * @param fileType 文件类型（xls/xlsx/csv）
+     * @param title    sheet名
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流
+     * @param <T>
+     * @throws Exception
+     */
+    public static <T> void exportExcel(String fileType, String title, Integer sheetSize, List<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcel(fileType, title, sheetSize, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 导出Excel，顺序遍历数据源（如分页查询结果），不要求数据全部在内存中
      *
-     * @param entity 实体
-     * @param objs   数据
-     * @param heads  表头
+     * @param fileType 文件类型（xls/xlsx/csv）
+     * @param title    sheet名
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流
      */
-    private static void setValue(Object entity, Object[] objs, Object[] heads) throws Exception {
-        //数据校验
-        if (objs == null || objs.length == 0) {
-            throw new Exception("数据不存在");
-        }
-        if (heads == null || heads.length == 0) {
-            throw new Exception("表头不存在");
-        }
-        //获取字段@Excel注解的value与字段名的映射
-        Map<String, Field> fields = getFiledByName(entity.getClass());
+    public static <T> void exportExcel(String fileType, String title, Integer sheetSize, Iterable<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcel(fileType, title, sheetSize, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 导出Excel，顺序消费数据流，流由调用方负责关闭
+     *
+     * @param fileType 文件类型（xls/xlsx/csv）
+     * @param title    sheet名
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流
+     */
+    public static <T> void exportExcel(String fileType, String title, Integer sheetSize, Stream<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcel(fileType, title, sheetSize, data.iterator(), clazz, out);
+    }
 
-        if (fields.size() == 0) {
-            throw new Exception("实体类不包含任何属性");
+    /**
+     * 导出Excel，顺序遍历数据（如数据库游标），每页写满sheetSize行后自动新建sheet
+     *
+     * @param fileType 文件类型（xls/xlsx/csv）
+     * @param title    sheet名
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流
+     */
+    public static <T> void exportExcel(String fileType, String title, Integer sheetSize, Iterator<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        //CSV不分页，title、sheetSize不使用
+        if (EXCEL_CSV.equals(fileType)) {
+            exportCsv(data, clazz, out, ',', StandardCharsets.UTF_8);
+            return;
         }
-        //创建属性与value值的映射
-        Map<Field,String>fieldName = new LinkedHashMap<>(16);
-        for (Map.Entry<String,Field> entry:fields.entrySet()){
-            fieldName.put(entry.getValue(),entry.getKey());
+        //校验数据
+        if (StringUtils.isEmpty(fileType) || (!EXCEL_XLS.equals(fileType) && !EXCEL_XLSX.equals(fileType))) {
+            throw new Exception("请确认要导出的文件类型为Excel文件格式");
         }
-
-        //获取Excel表头与列编号的映射
-        Map<String, Integer> headRowNumMap = new LinkedHashMap<>(16);
-        for (int i = 0; i < heads.length; i++) {
-            headRowNumMap.put(heads[i].toString(), i);
+        if (out == null) {
+            throw new Exception("未确定输出目标流");
         }
+        measureExport(clazz, fileType, () -> {
+            Workbook workbook = getWorkbook(fileType);
+            writeData(workbook, title, sheetSize, data, clazz);
+            writeWorkbook(workbook, fileType, out);
+        });
+    }
 
-        //获取字段名与列编号的映射
-        Map<Integer, Field> fieldMap = new LinkedHashMap<>(16);
-        for (Map.Entry<String, Field> entry : fields.entrySet()) {
-            String headName = entry.getKey();
-            if (headRowNumMap.get(headName) == null){
-                //判断此字段是否为必须字段
-                if (!checkRequired(entity.getClass(),entry.getValue())){
-                    continue;
-                }
-            }
-            fieldMap.put(headRowNumMap.get(headName), entry.getValue());
-        }
-
-        for (Map.Entry<Integer, Field> entry : fieldMap.entrySet()) {
-            Field field = entry.getValue();
-            if (field != null) {
-                field.setAccessible(true);
-                Class<?> fieldType = field.getType();
-                Object obj;
-                //明确要获取哪一列的数据
-                Integer cellNum = entry.getKey();
-                if (objs.length <= cellNum){
-                    //检验该字段是否为必须字段
-                    Boolean required = checkRequired(entity.getClass(),field);
-                    //是必须字段却没数据
-                    if (required){
-                        throw new Exception("“"+fieldName.get(field) + "”字段的数据为必须数据，不能为空");
-                    }
-                    //不是必须字段也没数据
-                    else {
-                        continue;
-                    }
-                }else if (StringUtils.isEmpty(objs[entry.getKey()].toString())){
-                    //检验该字段是否为必须字段
-                    Boolean required = checkRequired(entity.getClass(),field);
-                    //是必须字段却没数据
-                    if (required) {
-                        throw new Exception("“"+fieldName.get(field) + "”字段的数据为必须数据，不能为空");
-                    }
-                    //不是必须字段也没数据
-                    else {
-                        continue;
-                    }
-                }
-                else {
-                    obj = objs[entry.getKey()];
-                }
-                if (String.class == fieldType) {
-                    field.set(entity, String.valueOf(obj));
-                } else if (Integer.TYPE == fieldType || Integer.class == fieldType) {
-                    if (obj.toString().contains(".")) {
-                        obj = new Double(obj.toString()).intValue();
-                    }
-                    field.set(entity, Integer.parseInt(obj.toString()));
-                } else if (Long.TYPE == fieldType || Long.class == fieldType) {
-                    field.set(entity, Long.valueOf(obj.toString()));
-                } else if (Float.TYPE == fieldType || Float.class == fieldType) {
-                    field.set(entity, Float.valueOf(obj.toString()));
-                } else if (Short.TYPE == fieldType || Short.class == fieldType) {
-                    field.set(entity, Short.valueOf(obj.toString()));
-                } else if (Double.TYPE == fieldType || Double.class == fieldType) {
-                    field.set(entity, Double.valueOf(obj.toString()));
-                } else if (Date.class == fieldType) {
-                    if (StringUtils.isNotEmpty(obj.toString())) {
-                        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                        Date date = format.parse(obj.toString());
-                        field.set(entity, date);
-                    }
-                } else if (Character.TYPE == fieldType) {
-                    if ((obj != null) && (obj.toString().length() > 0)) {
-                        field.set(entity, Character.valueOf(obj.toString().charAt(0)));
-                    }
-                } else {
-                    field.set(entity, obj);
-                }
-            } else {
-                throw new Exception("存在不允许导入的字段");
-            }
+    /**
+     * 按数据量确定实际导出的文件类型：xls单个sheet放不下（超过65535行数据）时改为xlsx，
+     * 用于在写出前确定下载文件名，与exportExcelAuto的选择一致
+     *
+     * @param fileType 期望的文件类型（xls/xlsx/csv）
+     * @param rowCount 数据行数
+     * @return 实际的文件类型
+     */
+    public static String resolveFileType(String fileType, long rowCount) {
+        if (EXCEL_XLS.equals(fileType) && rowCount > ExcelSheetWriter.limitSheetSize(Integer.MAX_VALUE, SpreadsheetVersion.EXCEL97)) {
+            return EXCEL_XLSX;
         }
+        return fileType;
     }
 
     /**
-     * 检查字段
-     * @param clazz 实体类
-     * @param field 字段
-     * @return true:是必须字段 false:非必须字段
+     * 获取导出的列数（带@Excel注解的字段数），用于估算导出占用的内存
+     *
+     * @param clazz 传入数据使用的类
+     * @return 列数
      */
-    private static Boolean checkRequired(Class<?> clazz,Field field) {
-        Field[] fields = clazz.getDeclaredFields();
-        for (Field fie : fields){
-            if (fie.getAnnotation(Excel.class) != null && fie.getAnnotation(Excel.class).required() && fie.equals(field)){
-                return true;
-            }
-        }
-        return false;
+    public static int getColumnCount(Class<?> clazz) throws Exception {
+        return ExcelClassMeta.of(clazz).getOrderedFields().size();
     }
 
     /**
-     * 获取类的全部字段
+     * 按数据量自动选择导出方式：文件类型按resolveFileType确定，xlsx超过AUTO_STREAMING_ROWS行时流式导出（压缩临时文件），
+     * 其余按普通方式导出
      *
-     * @param clazz 类
-     * @return
+     * @param fileType  期望的文件类型（xls/xlsx/csv）
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流
+     * @return 实际的文件类型
      */
-    private static Map<String, Field> getFiledByName(Class<?> clazz) throws Exception {
-        Map<String, Field> fieldMap = new LinkedHashMap<>(16);
-        Field[] fields = clazz.getDeclaredFields();
-        if (fields.length == 0) {
-            throw new Exception("此实体类不含任何属性");
-        }
-        for (Field field : fields) {
-            if (field.getAnnotation(Excel.class) != null) {
-                fieldMap.put(field.getAnnotation(Excel.class).value(), field);
-            }
+    public static <T> String exportExcelAuto(String fileType, String title, Integer sheetSize, Collection<T> data, Class clazz,
+                                             OutputStream out) throws Exception {
+        String actualType = resolveFileType(fileType, data.size());
+        if (EXCEL_XLSX.equals(actualType) && data.size() > AUTO_STREAMING_ROWS) {
+            exportExcelStreaming(title, sheetSize, data, clazz, out, null, true);
+        } else {
+            exportExcel(actualType, title, sheetSize, data, clazz, out);
         }
-        return fieldMap;
+        return actualType;
+    }
+
+    /**
+     * 流式导出Excel（xlsx），内存中只保留最近windowSize行，更早的行写入磁盘临时文件，适合大数据量导出
+     *
+     * @param title             sheet名
+     * @param sheetSize         单页行数
+     * @param data              数据
+     * @param clazz             传入数据使用的类
+     * @param out               输出流
+     * @param windowSize        内存中保留的行数，为空时取默认值
+     * @param compressTempFiles 是否压缩临时文件（磁盘占用小，CPU开销略大）
+     */
+    public static <T> void exportExcelStreaming(String title, Integer sheetSize, Iterable<T> data, Class clazz, OutputStream out,
+                                                Integer windowSize, boolean compressTempFiles) throws Exception {
+        exportExcelStreaming(title, sheetSize, data.iterator(), clazz, out, windowSize, compressTempFiles);
+    }
+
+    /**
+     * 流式导出Excel（xlsx），顺序消费数据流，流由调用方负责关闭
+     *
+     * @param title             sheet名
+     * @param sheetSize         单页行数
+     * @param data              数据
+     * @param clazz             传入数据使用的类
+     * @param out               输出流
+     * @param windowSize        内存中保留的行数，为空时取默认值
+     * @param compressTempFiles 是否压缩临时文件
+     */
+    public static <T> void exportExcelStreaming(String title, Integer sheetSize, Stream<T> data, Class clazz, OutputStream out,
+                                                Integer windowSize, boolean compressTempFiles) throws Exception {
+        exportExcelStreaming(title, sheetSize, data.iterator(), clazz, out, windowSize, compressTempFiles);
     }
 
     /**
-     * 获取字段名
+     * 流式导出Excel（xlsx），数据源与工作簿均不需要全部在内存中，内存占用与数据量无关
      *
-     * @param clazz 实体类
-     * @return 字段名
+     * @param title             sheet名
+     * @param sheetSize         单页行数
+     * @param data              数据
+     * @param clazz             传入数据使用的类
+     * @param out               输出流
+     * @param windowSize        内存中保留的行数，为空时取默认值
+     * @param compressTempFiles 是否压缩临时文件
      */
-    private static Map<Integer, String> getFiledNameByClassName(Class clazz) throws Exception {
-        Map<Integer, String> fieldNameMap = new LinkedHashMap<>(16);
-        Field[] fields = clazz.getDeclaredFields();
-        if (fields.length == 0) {
-            throw new Exception("此实体类不含任何属性");
+    public static <T> void exportExcelStreaming(String title, Integer sheetSize, Iterator<T> data, Class clazz, OutputStream out,
+                                                Integer windowSize, boolean compressTempFiles) throws Exception {
+        if (out == null) {
+            throw new Exception("未确定输出目标流");
         }
-        for (int i = 0; i < fields.length; i++) {
-            if (fields[i].getAnnotation(Excel.class) != null) {
-                String name = fields[i].getAnnotation(Excel.class).value();
-                if (StringUtils.isEmpty(name)){
-                    throw new Exception(clazz.getName() + " 类中，字段"+fields[i].getName()+"的@Excel注解的value值不能为空或空串");
-                }else {
-                    fieldNameMap.put(i, name);
-                }
+        measureExport(clazz, EXCEL_XLSX, () -> {
+            SXSSFWorkbook workbook = getStreamingWorkbook(windowSize, compressTempFiles);
+            try {
+                writeData(workbook, title, sheetSize, data, clazz);
+                writeWorkbook(workbook, EXCEL_XLSX, out);
+            } finally {
+                //删除临时文件
+                workbook.dispose();
             }
+        });
+    }
+
+    /**
+     * 直接向输出流写出xlsx，每行数据生成后即写出，不构建工作簿也不使用临时文件，
+     * 适合作为HTTP响应边读取数据边下载，缩短首字节时间
+     *
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     */
+    public static <T> void exportExcelDirect(String title, Integer sheetSize, Iterable<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcelDirect(title, sheetSize, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 直接向输出流写出xlsx，顺序消费数据流，流由调用方负责关闭
+     *
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     */
+    public static <T> void exportExcelDirect(String title, Integer sheetSize, Stream<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcelDirect(title, sheetSize, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 直接向输出流写出xlsx，数据源与文件都不需要全部在内存中
+     *
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     */
+    public static <T> void exportExcelDirect(String title, Integer sheetSize, Iterator<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcelDirect(title, sheetSize, data, clazz, out, null);
+    }
+
+    /**
+     * 直接向输出流写出xlsx，每写入一行通知一次进度
+     *
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     * @param progress  每行写入后以已写入的行数调用，可为null
+     */
+    public static <T> void exportExcelDirect(String title, Integer sheetSize, Iterator<T> data, Class clazz, OutputStream out,
+                                             LongConsumer progress) throws Exception {
+        if (out == null) {
+            throw new Exception("未确定输出目标流");
         }
-        //检查有无重复的注解字段名（即@Excel注解的value值）
-        Set<String> name = new HashSet<>();
-        for (Map.Entry<Integer,String> entry:fieldNameMap.entrySet()){
-            name.add(entry.getValue());
-        }
-        if (name.size() != fieldNameMap.size()){
-            throw new Exception(clazz.getName() + " 类中@Excel注解的value值存在重复现象");
-        }
-        return fieldNameMap;
+        //设置单页行数
+        int size = sheetSize == null || sheetSize <= 0 ? 10000 : sheetSize;
+        writeDirect(data, clazz, out, counting -> new XlsxStreamWriter<>(counting, title, size, clazz), progress);
     }
 
     /**
-     * 导出Excel
+     * 按模板直接向输出流写出xlsx，模板只解析一次，数据行沿用模板占位行的样式，不创建样式也不构建工作簿
      *
-     * @param fileType 文件类型（xls/xlsx）
-     * @param title    sheet名
+     * @param template 模板
      * @param data     数据
      * @param clazz    传入数据使用的类
-     * @param out      输出流
-     * @param <T>
-     * @throws Exception
+     * @param out      输出流，由调用方关闭
      */
-    public static <T> void exportExcel(String fileType, String title, Integer sheetSize, List<T> data, Class clazz, OutputStream out)
+    public static <T> void exportExcelTemplate(ExcelTemplate template, Iterable<T> data, Class clazz, OutputStream out)
             throws Exception {
-        //校验数据
-        if (StringUtils.isEmpty(fileType) || (!EXCEL_XLS.equals(fileType) && !EXCEL_XLSX.equals(fileType))) {
-            throw new Exception("请确认要导出的文件类型为Excel文件格式");
+        exportExcelTemplate(template, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 按模板直接向输出流写出xlsx，顺序消费数据流，流由调用方负责关闭
+     *
+     * @param template 模板
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流，由调用方关闭
+     */
+    public static <T> void exportExcelTemplate(ExcelTemplate template, Stream<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        exportExcelTemplate(template, data.iterator(), clazz, out);
+    }
+
+    /**
+     * 按模板直接向输出流写出xlsx
+     *
+     * @param template 模板
+     * @param data     数据
+     * @param clazz    传入数据使用的类
+     * @param out      输出流，由调用方关闭
+     */
+    public static <T> void exportExcelTemplate(ExcelTemplate template, Iterator<T> data, Class clazz, OutputStream out)
+            throws Exception {
+        if (template == null) {
+            throw new Exception("未指定导出模板");
         }
         if (out == null) {
             throw new Exception("未确定输出目标流");
         }
+        writeDirect(data, clazz, out, counting -> new XlsxStreamWriter<>(counting, template, clazz), null);
+    }
+
+    /**
+     * 创建直接写出xlsx的写入器
+     */
+    @FunctionalInterface
+    private interface DirectWriterFactory<T> {
+        XlsxStreamWriter<T> open(OutputStream out) throws Exception;
+    }
+
+    /**
+     * 使用写入器写出全部数据
+     *
+     * @param data    数据
+     * @param clazz   传入数据使用的类
+     * @param out     输出流
+     * @param factory  写入器
+     * @param progress 每行写入后以已写入的行数调用，可为null
+     */
+    private static <T> void writeDirect(Iterator<T> data, Class<?> clazz, OutputStream out, DirectWriterFactory<T> factory,
+                                        LongConsumer progress) throws Exception {
+        measureExport(clazz, EXCEL_XLSX, () -> {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            long start = System.nanoTime();
+            try (XlsxStreamWriter<T> writer = factory.open(counting)) {
+                while (data.hasNext()) {
+                    writer.write(data.next());
+                    if (progress != null) {
+                        progress.accept(writer.getRowCount());
+                    }
+                }
+                long written = System.nanoTime();
+                metricsListener.exportRowsWritten(clazz, writer.getRowCount(), written - start);
+                writer.finish();
+                metricsListener.exportFlushed(EXCEL_XLSX, counting.getByteCount(), System.nanoTime() - written);
+            }
+        });
+    }
+
+    /**
+     * 导出CSV，列顺序、表头与Excel导出一致
+     *
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     * @param delimiter 分隔符
+     * @param charset   字符集，UTF-8时写入字节顺序标记
+     */
+    public static <T> void exportCsv(Iterable<T> data, Class clazz, OutputStream out, char delimiter, Charset charset)
+            throws Exception {
+        exportCsv(data.iterator(), clazz, out, delimiter, charset);
+    }
+
+    /**
+     * 导出CSV，顺序消费数据流，流由调用方负责关闭
+     *
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     * @param delimiter 分隔符
+     * @param charset   字符集，UTF-8时写入字节顺序标记
+     */
+    public static <T> void exportCsv(Stream<T> data, Class clazz, OutputStream out, char delimiter, Charset charset)
+            throws Exception {
+        exportCsv(data.iterator(), clazz, out, delimiter, charset);
+    }
+
+    /**
+     * 导出CSV，每行数据生成后即写出，数据源与文件都不需要全部在内存中
+     *
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     * @param out       输出流，由调用方关闭
+     * @param delimiter 分隔符
+     * @param charset   字符集，UTF-8时写入字节顺序标记
+     */
+    public static <T> void exportCsv(Iterator<T> data, Class clazz, OutputStream out, char delimiter, Charset charset)
+            throws Exception {
+        if (out == null) {
+            throw new Exception("未确定输出目标流");
+        }
+        if (charset == null) {
+            throw new Exception("未指定字符集");
+        }
+        measureExport(clazz, EXCEL_CSV, () -> {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            long start = System.nanoTime();
+            long rows;
+            try (CsvWriter<T> writer = new CsvWriter<>(counting, clazz, delimiter, charset)) {
+                while (data.hasNext()) {
+                    writer.write(data.next());
+                }
+                rows = writer.getRowCount();
+            }
+            metricsListener.exportRowsWritten(clazz, rows, System.nanoTime() - start);
+            //CSV边写入边输出，输出耗时已计入写入阶段
+            metricsListener.exportFlushed(EXCEL_CSV, counting.getByteCount(), 0);
+        });
+    }
+
+    /**
+     * 获取流式工作簿
+     *
+     * @param windowSize        内存中保留的行数，为空或不大于0时取默认值
+     * @param compressTempFiles 是否压缩临时文件
+     * @return workbook
+     */
+    private static SXSSFWorkbook getStreamingWorkbook(Integer windowSize, boolean compressTempFiles) {
+        if (windowSize == null || windowSize <= 0) {
+            windowSize = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+        }
+        SXSSFWorkbook workbook = new SXSSFWorkbook(windowSize);
+        workbook.setCompressTempFiles(compressTempFiles);
+        return workbook;
+    }
+
+    /**
+     * 向工作簿中顺序写入数据，每页写满单页行数后自动新建sheet
+     *
+     * @param workbook  工作簿
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param data      数据
+     * @param clazz     传入数据使用的类
+     */
+    private static <T> void writeData(Workbook workbook, String title, Integer sheetSize, Iterator<T> data, Class clazz)
+            throws Exception {
         //设置单页行数
         if (sheetSize == null || sheetSize <= 0) {
             sheetSize = 10000;
         }
-        //计算页数,不足一页算一页
-        int pages = data.size() / sheetSize;
-        if (data.size() % sheetSize > 0) {
-            pages += 1;
-        }
-        Workbook workbook = getWorkbook(fileType);
-        Map<Integer, String> fieldNameMap = getFiledNameByClassName(clazz);
-        Map<String, Field> fieldMap = getFiledByName(clazz);
-        Map<Integer,Field> tempMap = new LinkedHashMap<>(16);
-        for (Map.Entry<Integer,String> entry:fieldNameMap.entrySet()){
-            tempMap.put(entry.getKey(),fieldMap.get(fieldNameMap.get(entry.getKey())));
-        }
-        for (int i = 0; i < pages; i++) {
-            int startData = i * sheetSize;
-            int endData = (i + 1) * sheetSize - 1 > data.size() ? data.size() : (i + 1) * sheetSize - 1;
-            int rowNum = 0;
-            Sheet sheet;
-            //设置sheet名
-            if (pages > 1) {
-                sheet = workbook.createSheet(title + i);
-            } else {
-                sheet = workbook.createSheet(title);
-            }
-            Row row = sheet.createRow(rowNum++);
-            //设置表头
-            for (int j = 0; j < fieldNameMap.size(); j++) {
-                Cell cell = row.createCell(j);
-                cell.setCellValue(fieldNameMap.get(j));
-            }
-            //填充数据
-            for (int j = startData; j < endData; j++) {
-                row = sheet.createRow(rowNum++);
-                T item = data.get(j);
-                for (int k = 0; k < fieldNameMap.size(); k++) {
-                    Field field = tempMap.get(k);
-                    field.setAccessible(true);
-                    Object obj = field.get(item);
-                    String value;
-                    if (obj == null) {
-                        value = "";
-                    } else {
-                        if (field.getType() == Date.class) {
-                            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                            value = format.format(obj);
-                        } else {
-                            value = obj.toString();
-                        }
-                    }
-                    Cell cell = row.createCell(k);
-                    cell.setCellValue(value);
-                }
-            }
+        long start = System.nanoTime();
+        ExcelSheetWriter<T> writer = new ExcelSheetWriter<>(workbook, title, sheetSize, clazz);
+        //填充数据
+        while (data.hasNext()) {
+            writer.write(data.next());
+        }
+        metricsListener.exportRowsWritten(clazz, writer.getRowCount(), System.nanoTime() - start);
+    }
+
+    /**
+     * 将工作簿写出到输出流
+     *
+     * @param workbook 工作簿
+     * @param fileType 文件类型
+     * @param out      输出流
+     */
+    private static void writeWorkbook(Workbook workbook, String fileType, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        workbook.write(counting);
+        metricsListener.exportFlushed(fileType, counting.getByteCount(), System.nanoTime() - start);
+    }
+
+    /**
+     * 导出任务
+     */
+    @FunctionalInterface
+    private interface ExportTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 执行导出并通知指标监听器导出结果
+     *
+     * @param clazz    传入数据使用的类
+     * @param fileType 文件类型
+     * @param task     导出任务
+     */
+    private static void measureExport(Class<?> clazz, String fileType, ExportTask task) throws Exception {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (Exception | Error e) {
+            metricsListener.exportFinished(clazz, fileType, System.nanoTime() - start, e);
+            throw e;
         }
-        workbook.write(out);
+        metricsListener.exportFinished(clazz, fileType, System.nanoTime() - start, null);
     }
 
     /**
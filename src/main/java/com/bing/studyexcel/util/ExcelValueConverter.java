@@ -0,0 +1,126 @@
+package com.bing.studyexcel.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: 导入时将单元格原生值写入字段的转换器，按字段类型在元数据构建时确定一次，
+ * int、long、double字段通过读写器直接按基本类型赋值，不经过字符串中转和装箱；
+ * 整数字段不接受小数及超出范围的值，转换失败时抛出异常
+ */
+interface ExcelValueConverter {
+
+    /**
+     * 日期格式，SimpleDateFormat非线程安全，按线程和格式复用
+     */
+    ThreadLocal<Map<String, SimpleDateFormat>> DATE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+
+    ExcelValueConverter STRING = (entity, accessor, cell) -> accessor.set(entity, cell.getString());
+    ExcelValueConverter INT = (entity, accessor, cell) -> accessor.setInt(entity, cell.getInt());
+    ExcelValueConverter INTEGER = (entity, accessor, cell) -> accessor.set(entity, cell.getInt());
+    ExcelValueConverter PRIMITIVE_LONG = (entity, accessor, cell) -> accessor.setLong(entity, cell.getLong());
+    ExcelValueConverter LONG = (entity, accessor, cell) -> accessor.set(entity, cell.getLong());
+    ExcelValueConverter PRIMITIVE_SHORT = (entity, accessor, cell) -> accessor.set(entity, cell.getShort());
+    ExcelValueConverter SHORT = (entity, accessor, cell) -> accessor.set(entity, cell.getShort());
+    ExcelValueConverter PRIMITIVE_FLOAT = (entity, accessor, cell) -> accessor.set(entity, cell.getFloat());
+    ExcelValueConverter FLOAT = (entity, accessor, cell) -> accessor.set(entity, cell.getFloat());
+    ExcelValueConverter PRIMITIVE_DOUBLE = (entity, accessor, cell) -> accessor.setDouble(entity, cell.getDouble());
+    ExcelValueConverter DOUBLE = (entity, accessor, cell) -> accessor.set(entity, cell.getDouble());
+    ExcelValueConverter PRIMITIVE_BOOLEAN = (entity, accessor, cell) -> accessor.set(entity, cell.getBoolean());
+    ExcelValueConverter BOOLEAN = (entity, accessor, cell) -> accessor.set(entity, cell.getBoolean());
+    ExcelValueConverter BIG_DECIMAL = (entity, accessor, cell) -> accessor.set(entity, cell.getBigDecimal());
+    ExcelValueConverter CHARACTER = (entity, accessor, cell) -> {
+        Character value = cell.getCharacter();
+        if (value != null) {
+            accessor.set(entity, value);
+        }
+    };
+    ExcelValueConverter OBJECT = (entity, accessor, cell) -> accessor.set(entity, cell.getValue());
+
+    /**
+     * 读取单元格的值并赋值给实体字段
+     *
+     * @param entity   实体
+     * @param accessor 字段的读写器
+     * @param cell     单元格的值（非空单元格）
+     */
+    void setValue(Object entity, ExcelAccessor accessor, ExcelCellValue cell) throws Exception;
+
+    /**
+     * 根据字段类型及@Excel注解获取转换器
+     *
+     * @param field 字段
+     * @param excel 注解
+     * @return 转换器
+     */
+    static ExcelValueConverter forField(Field field, Excel excel) throws Exception {
+        if (excel.converter() != ExcelConverter.class) {
+            ExcelConverter<?> converter;
+            try {
+                converter = excel.converter().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new Exception(field.getDeclaringClass().getName() + " 类的" + field.getName() + "字段的转换器无法实例化", e);
+            }
+            return (entity, a, cell) -> {
+                Object value = converter.convert(cell);
+                if (value != null) {
+                    a.set(entity, value);
+                }
+            };
+        }
+        Class<?> fieldType = field.getType();
+        if (String.class == fieldType) {
+            return STRING;
+        } else if (Integer.TYPE == fieldType) {
+            return INT;
+        } else if (Integer.class == fieldType) {
+            return INTEGER;
+        } else if (Long.TYPE == fieldType) {
+            return PRIMITIVE_LONG;
+        } else if (Long.class == fieldType) {
+            return LONG;
+        } else if (Short.TYPE == fieldType) {
+            return PRIMITIVE_SHORT;
+        } else if (Short.class == fieldType) {
+            return SHORT;
+        } else if (Float.TYPE == fieldType) {
+            return PRIMITIVE_FLOAT;
+        } else if (Float.class == fieldType) {
+            return FLOAT;
+        } else if (Double.TYPE == fieldType) {
+            return PRIMITIVE_DOUBLE;
+        } else if (Double.class == fieldType) {
+            return DOUBLE;
+        } else if (Boolean.TYPE == fieldType) {
+            return PRIMITIVE_BOOLEAN;
+        } else if (Boolean.class == fieldType) {
+            return BOOLEAN;
+        } else if (BigDecimal.class == fieldType) {
+            return BIG_DECIMAL;
+        } else if (Date.class == fieldType) {
+            //文本日期按注解的format解析，未指定时按默认格式
+            String pattern = StringUtils.isEmpty(excel.format()) ? ExcelUtil.DEFAULT_DATE_FORMAT : excel.format();
+            return (entity, a, cell) -> a.set(entity, cell.getDate(pattern));
+        } else if (Character.TYPE == fieldType || Character.class == fieldType) {
+            return CHARACTER;
+        } else {
+            return OBJECT;
+        }
+    }
+
+    /**
+     * 获取当前线程的日期格式
+     *
+     * @param pattern 格式
+     * @return 日期格式
+     */
+    static SimpleDateFormat dateFormat(String pattern) {
+        return DATE_FORMATS.get().computeIfAbsent(pattern, SimpleDateFormat::new);
+    }
+}
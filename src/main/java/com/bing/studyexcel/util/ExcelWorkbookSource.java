@@ -0,0 +1,23 @@
+package com.bing.studyexcel.util;
+
+import java.io.Closeable;
+
+/**
+ * @Description: 可按sheet分别打开行数据源的工作簿。工作簿本身不是线程安全的，openSheet只能由一个线程调用；
+ * 打开后的不同sheet数据源可以在不同线程中同时读取，全部读取结束后才能关闭工作簿
+ */
+interface ExcelWorkbookSource extends Closeable {
+
+    /**
+     * @return sheet数量
+     */
+    int getSheetCount();
+
+    /**
+     * 打开某个sheet的行数据源，关闭该数据源不会关闭工作簿
+     *
+     * @param sheetIndex sheet编号（从0开始）
+     * @return 行数据源
+     */
+    ExcelRowSource openSheet(int sheetIndex) throws Exception;
+}
@@ -0,0 +1,56 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @Description: 基于已加载工作簿（xls/xlsx）的工作簿数据源，关闭时释放工作簿所依赖的文件
+ */
+final class PoiWorkbookSource implements ExcelWorkbookSource {
+
+    private final Workbook workbook;
+    /**
+     * 工作簿所依赖的文件系统或zip包
+     */
+    private final Closeable resource;
+    /**
+     * 关闭时需要删除的临时文件
+     */
+    private final File tempFile;
+
+    /**
+     * @param workbook 工作簿
+     * @param resource 工作簿所依赖的文件系统或zip包，关闭时一并关闭
+     * @param tempFile 临时文件，关闭后删除
+     */
+    PoiWorkbookSource(Workbook workbook, Closeable resource, File tempFile) throws IOException {
+        if (workbook.getNumberOfSheets() == 0) {
+            throw new IOException("文件中没有任何数据");
+        }
+        this.workbook = workbook;
+        this.resource = resource;
+        this.tempFile = tempFile;
+    }
+
+    @Override
+    public int getSheetCount() {
+        return workbook.getNumberOfSheets();
+    }
+
+    @Override
+    public ExcelRowSource openSheet(int sheetIndex) {
+        return new WorkbookRowSource(workbook.getSheetAt(sheetIndex), sheetIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            resource.close();
+        } finally {
+            ExcelUtil.deleteTempFile(tempFile);
+        }
+    }
+}
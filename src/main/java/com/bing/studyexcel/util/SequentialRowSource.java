@@ -0,0 +1,68 @@
+package com.bing.studyexcel.util;
+
+import java.io.IOException;
+
+/**
+ * @Description: 依次读取工作簿中各sheet的行数据源，关闭时一并关闭工作簿
+ */
+final class SequentialRowSource implements ExcelRowSource {
+
+    private final ExcelWorkbookSource workbook;
+    private int sheetIndex = -1;
+    private ExcelRowSource sheet;
+
+    SequentialRowSource(ExcelWorkbookSource workbook) {
+        this.workbook = workbook;
+    }
+
+    @Override
+    public boolean nextRow() throws Exception {
+        while (sheet == null || !sheet.nextRow()) {
+            if (sheet != null) {
+                sheet.close();
+                sheet = null;
+            }
+            if (++sheetIndex >= workbook.getSheetCount()) {
+                return false;
+            }
+            sheet = workbook.openSheet(sheetIndex);
+        }
+        return true;
+    }
+
+    @Override
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    public int getRowNum() {
+        return sheet.getRowNum();
+    }
+
+    @Override
+    public int getCellCount() {
+        return sheet.getCellCount();
+    }
+
+    @Override
+    public ExcelCellValue getCell(int column) {
+        return sheet.getCell(column);
+    }
+
+    @Override
+    public void selectColumns(int[] columns) {
+        sheet.selectColumns(columns);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sheet != null) {
+                sheet.close();
+            }
+        } finally {
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * @Description: 基于已加载工作簿（xls/xlsx）中某个sheet的行数据源，单元格按需读取其原生类型的值
+ */
+final class WorkbookRowSource implements ExcelRowSource {
+
+    private final int sheetIndex;
+    private final Iterator<Row> rows;
+    private Row row;
+    /**
+     * 按列复用的单元格值
+     */
+    private ExcelCellValue[] cells = new ExcelCellValue[0];
+
+    /**
+     * @param sheet      sheet，为null时没有数据
+     * @param sheetIndex sheet编号
+     */
+    WorkbookRowSource(Sheet sheet, int sheetIndex) {
+        this.sheetIndex = sheetIndex;
+        this.rows = sheet == null ? null : sheet.iterator();
+    }
+
+    @Override
+    public boolean nextRow() {
+        if (rows == null || !rows.hasNext()) {
+            row = null;
+            return false;
+        }
+        row = rows.next();
+        return true;
+    }
+
+    @Override
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    public int getRowNum() {
+        return row.getRowNum();
+    }
+
+    @Override
+    public int getCellCount() {
+        return Math.max(row.getLastCellNum(), 0);
+    }
+
+    @Override
+    public ExcelCellValue getCell(int column) {
+        if (column >= cells.length) {
+            int length = cells.length;
+            cells = Arrays.copyOf(cells, Math.max(column + 1, length * 2));
+            for (int i = length; i < cells.length; i++) {
+                cells[i] = new ExcelCellValue();
+            }
+        }
+        ExcelCellValue value = cells[column];
+        readCell(row.getCell(column), value);
+        return value;
+    }
+
+    /**
+     * 按单元格类型读取原生值，公式单元格取缓存的计算结果
+     *
+     * @param cell  单元格
+     * @param value 读取到的值
+     */
+    static void readCell(Cell cell, ExcelCellValue value) {
+        if (cell == null) {
+            value.setBlank();
+            return;
+        }
+        int type = cell.getCellType();
+        if (type == Cell.CELL_TYPE_FORMULA) {
+            type = cell.getCachedFormulaResultType();
+        }
+        switch (type) {
+            case Cell.CELL_TYPE_NUMERIC:
+                value.setNumber(cell.getNumericCellValue(), DateUtil.isCellDateFormatted(cell));
+                break;
+            case Cell.CELL_TYPE_STRING:
+                value.setString(cell.getStringCellValue());
+                break;
+            case Cell.CELL_TYPE_BOOLEAN:
+                value.setBoolean(cell.getBooleanCellValue());
+                break;
+            default:
+                value.setBlank();
+        }
+    }
+
+    @Override
+    public void close() {
+        //工作簿由PoiWorkbookSource持有，无需释放
+    }
+}
@@ -0,0 +1,345 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * @Description: xlsx中某个sheet的流式行数据源，基于OOXML事件模型逐行拉取sheet的XML，不构建完整工作簿，
+ * 内存占用只与共享字符串表和当前行有关。公式单元格取缓存的计算结果
+ */
+final class XlsxStreamRowSource implements ExcelRowSource {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+    private final int sheetIndex;
+    /**
+     * 样式是否为日期格式的缓存，按样式编号索引
+     */
+    private Boolean[] dateStyles = new Boolean[16];
+
+    private final InputStream sheetStream;
+    private final XMLStreamReader reader;
+    private boolean finished;
+    private int rowNum = -1;
+    /**
+     * 按列复用的单元格值
+     */
+    private ExcelCellValue[] cells = new ExcelCellValue[0];
+    private int cellCount;
+    /**
+     * 需要读取的列，为null时读取所有列
+     */
+    private int[] selectedColumns;
+    /**
+     * 按列编号标记是否需要读取，长度为需要读取的最后一列加1
+     */
+    private boolean[] selected;
+    /**
+     * 不需要读取的列返回的空单元格
+     */
+    private final ExcelCellValue blank = new ExcelCellValue();
+
+    /**
+     * @param sheetStream sheet的XML，随数据源一起关闭
+     * @param sheetIndex  sheet编号
+     * @param strings     共享字符串表
+     * @param styles      样式表
+     */
+    XlsxStreamRowSource(InputStream sheetStream, int sheetIndex, ReadOnlySharedStringsTable strings,
+                        StylesTable styles) throws Exception {
+        this.sheetStream = sheetStream;
+        this.sheetIndex = sheetIndex;
+        this.strings = strings;
+        this.styles = styles;
+        try {
+            this.reader = XML_INPUT_FACTORY.createXMLStreamReader(sheetStream);
+        } catch (XMLStreamException e) {
+            sheetStream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean nextRow() throws Exception {
+        while (!finished && reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+                readRow();
+                return true;
+            }
+        }
+        finished = true;
+        cellCount = 0;
+        return false;
+    }
+
+    /**
+     * 读取当前row元素中的所有单元格，设置了列投影时只解析需要的列
+     */
+    private void readRow() throws XMLStreamException {
+        String ref = reader.getAttributeValue(null, "r");
+        rowNum = ref == null ? rowNum + 1 : Integer.parseInt(ref) - 1;
+        cellCount = 0;
+        if (selectedColumns != null) {
+            readSelectedCells();
+            return;
+        }
+        int column = -1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT || !"c".equals(reader.getLocalName())) {
+                continue;
+            }
+            String cellRef = reader.getAttributeValue(null, "r");
+            column = cellRef == null ? column + 1 : columnIndex(cellRef);
+            ensureCapacity(column + 1);
+            //中间缺失的单元格为空
+            for (int i = cellCount; i < column; i++) {
+                cells[i].setBlank();
+            }
+            readCell(cells[column]);
+            cellCount = column + 1;
+        }
+    }
+
+    /**
+     * 只读取当前row元素中需要的单元格，其余单元格跳过，不取属性、不解析值，
+     * 超过需要读取的最后一列后直接跳到行尾
+     */
+    private void readSelectedCells() throws XMLStreamException {
+        for (int column : selectedColumns) {
+            cells[column].setBlank();
+        }
+        int column = -1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+                return;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT || !"c".equals(reader.getLocalName())) {
+                continue;
+            }
+            String cellRef = reader.getAttributeValue(null, "r");
+            column = cellRef == null ? column + 1 : columnIndex(cellRef);
+            cellCount = column + 1;
+            if (column >= selected.length) {
+                //后续的单元格都不需要，单元格数只需大于需要读取的最后一列
+                skipTo("row");
+                return;
+            }
+            if (selected[column]) {
+                readCell(cells[column]);
+            } else {
+                skipTo("c");
+            }
+        }
+    }
+
+    /**
+     * 跳过当前元素的剩余内容
+     *
+     * @param localName 要跳过的元素名
+     */
+    private void skipTo(String localName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.END_ELEMENT && localName.equals(reader.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 读取当前c元素的原生值
+     *
+     * @param value 读取到的值
+     */
+    private void readCell(ExcelCellValue value) throws XMLStreamException {
+        String type = reader.getAttributeValue(null, "t");
+        String style = reader.getAttributeValue(null, "s");
+        String raw = null;
+        StringBuilder inline = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = reader.getLocalName();
+            if ("v".equals(name)) {
+                raw = reader.getElementText();
+            } else if ("t".equals(name)) {
+                //内联字符串，富文本时由多个t组成
+                if (inline == null) {
+                    inline = new StringBuilder();
+                }
+                inline.append(reader.getElementText());
+            } else if ("f".equals(name)) {
+                reader.getElementText();
+            }
+        }
+        if ("inlineStr".equals(type)) {
+            value.setString(inline == null ? null : inline.toString());
+        } else if (raw == null || raw.isEmpty() || "e".equals(type)) {
+            value.setBlank();
+        } else if ("s".equals(type)) {
+            value.setString(strings.getEntryAt(Integer.parseInt(raw)));
+        } else if ("b".equals(type)) {
+            value.setBoolean(!"0".equals(raw));
+        } else if ("d".equals(type)) {
+            Date date = parseIsoDate(raw);
+            if (date == null) {
+                value.setString(raw);
+            } else {
+                value.setNumber(DateUtil.getExcelDate(date), true);
+            }
+        } else if (type == null || "n".equals(type)) {
+            double number = Double.parseDouble(raw);
+            boolean date = style != null && isDateStyle(Integer.parseInt(style)) && DateUtil.isValidExcelDate(number);
+            value.setNumber(number, date);
+        } else {
+            //str及未知类型按文本读取
+            value.setString(raw);
+        }
+    }
+
+    /**
+     * 解析ISO 8601格式的日期单元格（t="d"），忽略时区
+     *
+     * @param raw 单元格的值，如2019-10-30或2019-10-30T14:55:00
+     * @return 日期，格式不正确时返回null
+     */
+    private static Date parseIsoDate(String raw) {
+        try {
+            LocalDateTime dateTime = raw.indexOf('T') < 0 ? LocalDate.parse(raw).atStartOfDay()
+                    : LocalDateTime.from(DateTimeFormatter.ISO_DATE_TIME.parse(raw));
+            return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cells.length) {
+            int length = cells.length;
+            cells = Arrays.copyOf(cells, Math.max(capacity, length * 2));
+            for (int i = length; i < cells.length; i++) {
+                cells[i] = new ExcelCellValue();
+            }
+        }
+    }
+
+    /**
+     * 判断样式是否为日期格式
+     *
+     * @param styleIndex 样式编号
+     */
+    private boolean isDateStyle(int styleIndex) {
+        if (styles == null) {
+            return false;
+        }
+        if (styleIndex >= dateStyles.length) {
+            dateStyles = Arrays.copyOf(dateStyles, styleIndex + 16);
+        }
+        Boolean date = dateStyles[styleIndex];
+        if (date == null) {
+            XSSFCellStyle cellStyle = styles.getStyleAt(styleIndex);
+            date = cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+            dateStyles[styleIndex] = date;
+        }
+        return date;
+    }
+
+    /**
+     * 由单元格引用（如AB12）计算列编号
+     *
+     * @param cellRef 单元格引用
+     * @return 列编号（从0开始）
+     */
+    static int columnIndex(String cellRef) {
+        int column = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    @Override
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public ExcelCellValue getCell(int column) {
+        if (selected != null && (column >= selected.length || !selected[column])) {
+            return blank;
+        }
+        return cells[column];
+    }
+
+    @Override
+    public void selectColumns(int[] columns) {
+        int last = -1;
+        for (int column : columns) {
+            last = Math.max(last, column);
+        }
+        boolean[] selected = new boolean[last + 1];
+        for (int column : columns) {
+            selected[column] = true;
+        }
+        ensureCapacity(last + 1);
+        this.selected = selected;
+        this.selectedColumns = columns.clone();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            sheetStream.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * @Description: xlsx流式工作簿数据源，只加载共享字符串表和样式表，各sheet的XML按需打开、逐行解析
+ */
+final class XlsxStreamWorkbookSource implements ExcelWorkbookSource {
+
+    private final OPCPackage pkg;
+    /**
+     * 关闭时需要删除的临时文件
+     */
+    private final File tempFile;
+    private final XSSFReader xssfReader;
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+    private final int sheetCount;
+
+    /**
+     * @param file      xlsx文件
+     * @param temporary 是否为临时文件，为true时关闭后删除该文件
+     */
+    XlsxStreamWorkbookSource(File file, boolean temporary) throws Exception {
+        this.pkg = OPCPackage.open(file.getPath(), PackageAccess.READ);
+        this.tempFile = temporary ? file : null;
+        try {
+            this.xssfReader = new XSSFReader(pkg);
+            this.strings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = xssfReader.getStylesTable();
+            int count = 0;
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                count++;
+            }
+            if (count == 0) {
+                throw new IOException("文件中没有任何数据");
+            }
+            this.sheetCount = count;
+        } catch (Exception e) {
+            //只读打开，放弃修改并关闭
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    @Override
+    public ExcelRowSource openSheet(int sheetIndex) throws Exception {
+        Iterator<InputStream> sheets = xssfReader.getSheetsData();
+        for (int i = 0; i < sheetIndex; i++) {
+            sheets.next().close();
+        }
+        return new XlsxStreamRowSource(sheets.next(), sheetIndex, strings, styles);
+    }
+
+    @Override
+    public void close() {
+        //只读打开，放弃修改并关闭
+        pkg.revert();
+        if (tempFile != null) {
+            ExcelUtil.deleteTempFile(tempFile);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.bing.studyexcel.util;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @Description: 直接向输出流写出xlsx，每行数据生成后即写入压缩流，不经过POI工作簿及临时文件，
+ * 客户端可以在数据读取过程中就开始接收文件。sheet按写入顺序输出，工作簿、样式等目录信息在最后输出；
+ * 文本使用内联字符串，不生成共享字符串表。使用模板时数据写入模板的占位行，模板的其余内容原样输出
+ */
+final class XlsxStreamWriter<T> implements Closeable {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String XML_HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    /**
+     * 自定义数字格式的起始编号，之前为内置格式
+     */
+    private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+
+    private final TargetStream target;
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final String title;
+    private final int sheetSize;
+    private final List<ExcelField> fields;
+    /**
+     * 各列的列号字母
+     */
+    private final String[] columnNames;
+    /**
+     * 各列的样式编号，无格式的列为0
+     */
+    private final int[] styleIds;
+    /**
+     * 使用到的格式，下标加1为样式编号
+     */
+    private final List<String> formats = new ArrayList<>();
+    /**
+     * 模板，不使用模板时为null
+     */
+    private final ExcelTemplate template;
+    /**
+     * 数据行除行号外的属性
+     */
+    private final String rowAttributes;
+    private int sheetCount;
+    /**
+     * 分页后各sheet的名称，只有一个sheet时为空
+     */
+    private final List<String> sheetNames = new ArrayList<>();
+    private final Set<String> usedSheetNames = new HashSet<>();
+    /**
+     * 当前sheet的下一行行号
+     */
+    private int rowNum;
+    private long rowCount;
+    private boolean finished;
+
+    /**
+     * @param out       输出流，由调用方关闭
+     * @param title     sheet名
+     * @param sheetSize 单页行数
+     * @param clazz     传入数据使用的类
+     */
+    XlsxStreamWriter(OutputStream out, String title, int sheetSize, Class<?> clazz) throws Exception {
+        WorkbookUtil.validateSheetName(title);
+        this.target = new TargetStream(out);
+        this.zip = new ZipOutputStream(target);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 8192);
+        this.template = null;
+        this.rowAttributes = "";
+        this.title = title;
+        this.fields = ExcelClassMeta.of(clazz).getOrderedFields();
+        ExcelSheetWriter.checkColumns(fields.size(), SpreadsheetVersion.EXCEL2007);
+        this.sheetSize = ExcelSheetWriter.limitSheetSize(sheetSize, SpreadsheetVersion.EXCEL2007);
+        this.columnNames = new String[fields.size()];
+        this.styleIds = new int[fields.size()];
+        for (int k = 0; k < fields.size(); k++) {
+            columnNames[k] = CellReference.convertNumToColString(k);
+            String format = ExcelSheetWriter.columnFormat(fields.get(k));
+            if (format != null) {
+                int index = formats.indexOf(format);
+                if (index < 0) {
+                    formats.add(format);
+                    index = formats.size() - 1;
+                }
+                styleIds[k] = index + 1;
+            }
+        }
+        //即使没有数据也导出带表头的空表
+        nextSheet();
+    }
+
+    /**
+     * 按模板写出，只有一个sheet，实体中模板没有占位的字段不导出
+     *
+     * @param out      输出流，由调用方关闭
+     * @param template 模板
+     * @param clazz    传入数据使用的类
+     */
+    XlsxStreamWriter(OutputStream out, ExcelTemplate template, Class<?> clazz) throws Exception {
+        Map<String, ExcelTemplate.Column> columns = template.getColumns();
+        ExcelClassMeta meta = ExcelClassMeta.of(clazz);
+        this.fields = new ArrayList<>(columns.size());
+        this.columnNames = new String[columns.size()];
+        this.styleIds = new int[columns.size()];
+        for (Map.Entry<String, ExcelTemplate.Column> entry : columns.entrySet()) {
+            ExcelField field = meta.getField(entry.getKey());
+            if (field == null) {
+                throw new Exception("模板中的“" + entry.getKey() + "”字段在实体中不存在");
+            }
+            //样式取自模板，不再按字段的格式生成
+            columnNames[fields.size()] = CellReference.convertNumToColString(entry.getValue().index);
+            styleIds[fields.size()] = entry.getValue().styleId;
+            fields.add(field);
+        }
+        this.target = new TargetStream(out);
+        this.zip = new ZipOutputStream(target);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 8192);
+        this.template = template;
+        this.rowAttributes = template.getRowAttributes();
+        this.title = null;
+        this.sheetSize = SpreadsheetVersion.EXCEL2007.getMaxRows();
+        nextSheet();
+    }
+
+    /**
+     * 写入调用方输出流的目标流，关闭时不关闭调用方的输出流；
+     * 中止后丢弃之后的写入，压缩流释放时不再写出目录信息
+     */
+    private static final class TargetStream extends FilterOutputStream {
+
+        private boolean aborted;
+
+        TargetStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!aborted) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!aborted) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!aborted) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            //不关闭调用方的输出流
+            flush();
+        }
+    }
+
+    /**
+     * 写入一行数据
+     *
+     * @param item 数据
+     */
+    void write(T item) throws Exception {
+        if (template != null && rowNum >= sheetSize) {
+            throw new Exception("数据超过模板sheet的最大行数");
+        }
+        if (rowNum > sheetSize) {
+            endSheet();
+            nextSheet();
+        }
+        int excelRow = ++rowNum;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(excelRow));
+        writer.write('"');
+        writer.write(rowAttributes);
+        writer.write('>');
+        for (int k = 0; k < fields.size(); k++) {
+            ExcelField field = fields.get(k);
+            if (field.isPrimitiveNumber()) {
+                //基本数值类型字段不装箱直接写入
+                writeNumber(k, excelRow, field.getDouble(item));
+                continue;
+            }
+            Object obj = field.getValue(item);
+            //空值不写单元格
+            if (obj == null) {
+                continue;
+            }
+            writeCell(k, excelRow, obj);
+        }
+        writer.write("</row>");
+        rowCount++;
+    }
+
+    /**
+     * 按值的类型写入单元格，与ExcelSheetWriter一致：数值、布尔、日期写为原生类型，其余写为文本
+     */
+    private void writeCell(int column, int excelRow, Object obj) throws IOException {
+        if (obj instanceof Number) {
+            if (ExcelSheetWriter.isBeyondPrecision((Number) obj)) {
+                writeString(column, excelRow, obj.toString());
+            } else {
+                writeNumber(column, excelRow, ((Number) obj).doubleValue());
+            }
+        } else if (obj instanceof Boolean) {
+            cellStart(column, excelRow, "b");
+            writer.write("<v>");
+            writer.write((Boolean) obj ? "1" : "0");
+            writer.write("</v></c>");
+        } else if (obj instanceof Date) {
+            writeNumber(column, excelRow, DateUtil.getExcelDate((Date) obj));
+        } else if (obj instanceof Calendar) {
+            writeNumber(column, excelRow, DateUtil.getExcelDate((Calendar) obj, false));
+        } else {
+            writeString(column, excelRow, obj.toString());
+        }
+    }
+
+    private void writeNumber(int column, int excelRow, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeString(column, excelRow, Double.toString(value));
+            return;
+        }
+        cellStart(column, excelRow, null);
+        writer.write("<v>");
+        writer.write(Double.toString(value));
+        writer.write("</v></c>");
+    }
+
+    private void writeString(int column, int excelRow, String value) throws IOException {
+        cellStart(column, excelRow, "inlineStr");
+        writer.write("<is><t xml:space=\"preserve\">");
+        writer.write(escape(value));
+        writer.write("</t></is></c>");
+    }
+
+    private void cellStart(int column, int excelRow, String type) throws IOException {
+        writer.write("<c r=\"");
+        writer.write(columnNames[column]);
+        writer.write(Integer.toString(excelRow));
+        writer.write('"');
+        if (styleIds[column] != 0) {
+            writer.write(" s=\"");
+            writer.write(Integer.toString(styleIds[column]));
+            writer.write('"');
+        }
+        if (type != null) {
+            writer.write(" t=\"");
+            writer.write(type);
+            writer.write('"');
+        }
+        writer.write('>');
+    }
+
+    /**
+     * 转义文本，去掉XML不允许的控制字符
+     */
+    private static String escape(String value) {
+        StringBuilder builder = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                default:
+                    replacement = c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            }
+            if (replacement != null && builder == null) {
+                builder = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (builder != null) {
+                if (replacement != null) {
+                    builder.append(replacement);
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder == null ? value : builder.toString();
+    }
+
+    /**
+     * 开始新的sheet并写入表头
+     */
+    private void nextSheet() throws IOException {
+        sheetCount++;
+        writer.flush();
+        if (template != null) {
+            //模板占位行之前的内容原样输出，数据从占位行开始
+            zip.putNextEntry(new ZipEntry(template.getSheetEntry()));
+            writer.write(template.getSheetPrefix());
+            rowNum = template.getDataRowNum();
+            return;
+        }
+        //分页时在写入前生成sheet名，名称无效时尽早失败
+        if (sheetCount == 2) {
+            sheetNames.add(ExcelSheetWriter.sheetName(title, 0, usedSheetNames));
+        }
+        if (sheetCount > 1) {
+            sheetNames.add(ExcelSheetWriter.sheetName(title, sheetCount - 1, usedSheetNames));
+        }
+        rowNum = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        writer.write(XML_HEAD);
+        writer.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+        int excelRow = ++rowNum;
+        writer.write("<row r=\"" + excelRow + "\">");
+        for (int j = 0; j < fields.size(); j++) {
+            //表头不使用列的格式
+            writer.write("<c r=\"");
+            writer.write(columnNames[j]);
+            writer.write(Integer.toString(excelRow));
+            writer.write("\" t=\"inlineStr\"><is><t>");
+            writer.write(escape(fields.get(j).getName()));
+            writer.write("</t></is></c>");
+        }
+        writer.write("</row>");
+    }
+
+    private void endSheet() throws IOException {
+        writer.write(template == null ? "</sheetData></worksheet>" : template.getSheetSuffix());
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * 结束最后一个sheet，写出工作簿、样式等目录信息
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        endSheet();
+        if (template != null) {
+            //模板的工作簿、样式等文件原样输出
+            for (Map.Entry<String, byte[]> entry : template.getEntries().entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+            finished = true;
+            return;
+        }
+        writeEntry("xl/workbook.xml", workbookXml());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRelsXml());
+        writeEntry("xl/styles.xml", stylesXml());
+        writeEntry("[Content_Types].xml", contentTypesXml());
+        writeEntry("_rels/.rels", XML_HEAD + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        zip.finish();
+        zip.flush();
+        finished = true;
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * 分页时sheet名为title加页码，与ExcelSheetWriter一致
+     */
+    private String workbookXml() {
+        StringBuilder xml = new StringBuilder(XML_HEAD)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        for (int i = 1; i <= sheetCount; i++) {
+            String name = sheetCount == 1 ? title : sheetNames.get(i - 1);
+            xml.append("<sheet name=\"").append(escape(name)).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelsXml() {
+        StringBuilder xml = new StringBuilder(XML_HEAD)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetCount + 1).append("\" Type=\"").append(REL_NS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    private String stylesXml() {
+        StringBuilder xml = new StringBuilder(XML_HEAD).append("<styleSheet xmlns=\"").append(MAIN_NS).append("\">");
+        if (!formats.isEmpty()) {
+            xml.append("<numFmts count=\"").append(formats.size()).append("\">");
+            for (int i = 0; i < formats.size(); i++) {
+                xml.append("<numFmt numFmtId=\"").append(FIRST_CUSTOM_FORMAT_ID + i)
+                        .append("\" formatCode=\"").append(escape(formats.get(i))).append("\"/>");
+            }
+            xml.append("</numFmts>");
+        }
+        xml.append("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>")
+                .append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>")
+                .append("<fill><patternFill patternType=\"gray125\"/></fill></fills>")
+                .append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>")
+                .append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>")
+                .append("<cellXfs count=\"").append(formats.size() + 1).append("\">")
+                .append("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        for (int i = 0; i < formats.size(); i++) {
+            xml.append("<xf numFmtId=\"").append(FIRST_CUSTOM_FORMAT_ID + i)
+                    .append("\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>");
+        }
+        return xml.append("</cellXfs><cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>").toString();
+    }
+
+    private String contentTypesXml() {
+        StringBuilder xml = new StringBuilder(XML_HEAD)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    /**
+     * @return 已写入的数据行数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 释放压缩流，不关闭调用方的输出流；finish未成功完成时中止写出，
+     * 不写入压缩包目录，输出的文件无法被当作完整的xlsx打开
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            target.aborted = true;
+        }
+        zip.close();
+    }
+}
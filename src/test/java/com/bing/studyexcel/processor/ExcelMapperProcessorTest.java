@@ -0,0 +1,124 @@
+package com.bing.studyexcel.processor;
+
+import com.bing.studyexcel.util.Excel;
+import com.bing.studyexcel.util.ExcelUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: @Excel注解处理器：重复或为空的value值编译报错，生成的映射器在导入时使用
+ */
+class ExcelMapperProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rejectsDuplicateNames() {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(diagnostics, "demo.Duplicate", "package demo;\n"
+                + "import com.bing.studyexcel.util.Excel;\n"
+                + "public class Duplicate {\n"
+                + "    @Excel(\"姓名\") public String name;\n"
+                + "    @Excel(\"姓名\") public String alias;\n"
+                + "}\n"));
+        assertTrue(hasError(diagnostics, "存在重复现象"));
+    }
+
+    @Test
+    void rejectsEmptyNames() {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(diagnostics, "demo.Empty", "package demo;\n"
+                + "import com.bing.studyexcel.util.Excel;\n"
+                + "public class Empty {\n"
+                + "    @Excel public String name;\n"
+                + "}\n"));
+        assertTrue(hasError(diagnostics, "不能为空或空串"));
+    }
+
+    @Test
+    void importUsesGeneratedMapper() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        //生成的映射器通过setter为私有字段赋值，反射方式直接写字段，据此区分导入时使用的方式
+        assertTrue(compile(diagnostics, "demo.Person", "package demo;\n"
+                + "import com.bing.studyexcel.util.Excel;\n"
+                + "public class Person {\n"
+                + "    @Excel(value = \"姓名\", order = 1) private String name;\n"
+                + "    @Excel(value = \"年龄\", order = 2) private int age;\n"
+                + "    public String getName() { return name; }\n"
+                + "    public void setName(String name) { this.name = \"mapper:\" + name; }\n"
+                + "    public int getAge() { return age; }\n"
+                + "    public void setAge(int age) { this.age = age; }\n"
+                + "}\n"), diagnostics.getDiagnostics().toString());
+        assertTrue(tempDir.resolve("demo/PersonExcelMapper.class").toFile().exists());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> personClass = loader.loadClass("demo.Person");
+            byte[] csv = "姓名,年龄\n张三,20\n".getBytes(StandardCharsets.UTF_8);
+            List<?> list = ExcelUtil.importCsv(new MockMultipartFile("file", "person.csv", null, csv), personClass,
+                    ',', StandardCharsets.UTF_8);
+            assertEquals(1, list.size());
+            assertEquals("mapper:张三", personClass.getMethod("getName").invoke(list.get(0)));
+            assertEquals(20, personClass.getMethod("getAge").invoke(list.get(0)));
+        }
+    }
+
+    private boolean compile(DiagnosticCollector<JavaFileObject> diagnostics, String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        String out = tempDir.toString();
+        //surefire可能以只含清单的jar启动，java.class.path中不一定有编译后的类，另外加入@Excel所在的目录
+        String classpath = classLocation() + File.pathSeparator + System.getProperty("java.class.path");
+        List<String> options = Arrays.asList("-d", out, "-s", out, "-encoding", "UTF-8", "-classpath", classpath);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new ExcelMapperProcessor()));
+        return task.call();
+    }
+
+    private static String classLocation() {
+        try {
+            return new File(Excel.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean hasError(DiagnosticCollector<JavaFileObject> diagnostics, String message) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getMessage(null).contains(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bing.studyexcel.service;
+
+import com.bing.studyexcel.controller.ExcelController;
+import com.bing.studyexcel.pojo.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 导入导出准入控制：内存预算、排队上限、排队超时及429响应
+ */
+class ExcelAdmissionServiceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(4, 0, 1000);
+        try (ExcelAdmissionService.Permit permit = service.acquire(3 * MB)) {
+            assertEquals(3, service.getUsedMb());
+            assertEquals(1, service.getRunning());
+            long start = System.nanoTime();
+            ExcelBusyException e = assertThrows(ExcelBusyException.class, () -> service.acquire(2 * MB));
+            //排队已满时不等待
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            assertEquals(1, e.getRetryAfterSeconds());
+            assertEquals(0, service.getWaiting());
+        }
+        assertEquals(0, service.getUsedMb());
+        assertEquals(0, service.getRunning());
+    }
+
+    @Test
+    void rejectsWhenQueueTimesOut() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(4, 1, 100);
+        try (ExcelAdmissionService.Permit permit = service.acquire(4 * MB)) {
+            long start = System.nanoTime();
+            assertThrows(ExcelBusyException.class, () -> service.acquire(MB));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertEquals(0, service.getWaiting());
+        }
+    }
+
+    @Test
+    void queuedRequestRunsAfterRelease() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(4, 1, 5000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ExcelAdmissionService.Permit permit = service.acquire(4 * MB);
+            CountDownLatch submitted = new CountDownLatch(1);
+            Future<Integer> future = executor.submit(() -> {
+                submitted.countDown();
+                return service.call(2 * MB, service::getUsedMb);
+            });
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(1, service.getWaiting());
+            permit.close();
+            assertEquals(2, (int) future.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, service.getUsedMb());
+    }
+
+    @Test
+    void permitIsReleasedOnce() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(4, 0, 1000);
+        //超过预算的任务按整个预算计
+        ExcelAdmissionService.Permit permit = service.acquire(100 * MB);
+        assertEquals(4, service.getUsedMb());
+        permit.close();
+        permit.close();
+        assertEquals(0, service.getUsedMb());
+        assertEquals(0, service.getRunning());
+    }
+
+    @Test
+    void reservesWithoutQueueing() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(4, 1, 1000);
+        assertTrue(service.tryReserve(3 * MB));
+        assertFalse(service.tryReserve(2 * MB));
+        assertFalse(service.tryReserve(5 * MB));
+        service.release(3 * MB);
+        assertEquals(0, service.getUsedMb());
+    }
+
+    @Test
+    void estimatesStreamingExportByRowsAndColumns() throws Exception {
+        ExcelAdmissionService service = new ExcelAdmissionService(64, 0, 1000);
+        long small = service.estimateStreamingExport(10, User.class);
+        long larger = service.estimateStreamingExport(10000, User.class);
+        assertTrue(small < larger);
+        long max = service.estimateStreamingExport(-1, User.class);
+        assertEquals(max, service.estimateStreamingExport(Integer.MAX_VALUE, User.class));
+        assertTrue(larger <= max);
+    }
+
+    @Test
+    void busyIsMappedToTooManyRequests() {
+        ResponseEntity<String> response = new ExcelController().handleBusy(new ExcelBusyException("忙", 30));
+        assertEquals(429, response.getStatusCodeValue());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
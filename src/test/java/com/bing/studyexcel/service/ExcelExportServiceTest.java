@@ -0,0 +1,75 @@
+package com.bing.studyexcel.service;
+
+import com.bing.studyexcel.pojo.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 异步导出：下载过程中不清理任务，过期或文件被删除的任务不能下载
+ */
+class ExcelExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepsJobWhileDownloading() throws Exception {
+        //保留时间为0，完成后即可清理
+        ExcelExportService service = newService();
+        ExcelExportJob job = finishedJob(service);
+        File file = job.getFile();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long size = service.transferTo(job, length -> {
+            //下载过程中触发清理
+            service.cleanExpired();
+            assertTrue(file.exists());
+        }, Channels.newChannel(out));
+        assertEquals(size, out.size());
+        assertTrue(size > 0);
+        assertSame(job, service.getJob(job.getId()));
+
+        Thread.sleep(5);
+        service.cleanExpired();
+        assertNull(service.getJob(job.getId()));
+        assertFalse(file.exists());
+        assertThrows(ExcelExportExpiredException.class,
+                () -> service.transferTo(job, length -> { }, Channels.newChannel(new ByteArrayOutputStream())));
+        service.shutdown();
+    }
+
+    @Test
+    void missingFileIsExpired() throws Exception {
+        ExcelExportService service = newService();
+        ExcelExportJob job = finishedJob(service);
+        assertTrue(job.getFile().delete());
+        assertThrows(ExcelExportExpiredException.class,
+                () -> service.transferTo(job, length -> { }, Channels.newChannel(new ByteArrayOutputStream())));
+        service.shutdown();
+    }
+
+    private ExcelExportService newService() {
+        return new ExcelExportService(new ExcelAdmissionService(64, 0, 1000), 1, 1, 0, tempDir.toString());
+    }
+
+    private static ExcelExportJob finishedJob(ExcelExportService service) throws Exception {
+        User user = new User();
+        user.setUserName("张三");
+        ExcelExportJob job = service.submit("员工表", User.class, 1, () -> Collections.singletonList(user).iterator());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getStatus() != ExcelExportJob.Status.FINISHED) {
+            assertNotSame(ExcelExportJob.Status.FAILED, job.getStatus());
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,135 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: CSV行数据源：引号、字段内换行、字节顺序标记、字符集识别及跨缓冲区的字段
+ */
+class CsvRowSourceTest {
+
+    /**
+     * 与CsvRowSource的字符缓冲区大小一致
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsQuotedFieldsAndEmbeddedNewlines() throws Exception {
+        String csv = "姓名,备注\r\n"
+                + "\"张,三\",\"第一行\n第二行\"\r\n"
+                + "\"说\"\"你好\"\"\",\r\n"
+                + "\r\n"
+                + "李四,\"\"\n";
+        try (CsvWorkbookSource workbook = open(csv.getBytes(StandardCharsets.UTF_8), null);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertTrue(source.nextRow());
+            assertEquals("姓名", source.getCell(0).getString());
+            assertEquals("备注", source.getCell(1).getString());
+            assertTrue(source.nextRow());
+            assertEquals(1, source.getRowNum());
+            assertEquals("张,三", source.getCell(0).getString());
+            assertEquals("第一行\n第二行", source.getCell(1).getString());
+            assertTrue(source.nextRow());
+            //字段内的换行计入行号
+            assertEquals(3, source.getRowNum());
+            assertEquals(2, source.getCellCount());
+            assertEquals("说\"你好\"", source.getCell(0).getString());
+            assertTrue(source.getCell(1).isBlank());
+            //跳过空行
+            assertTrue(source.nextRow());
+            assertEquals(5, source.getRowNum());
+            assertEquals("李四", source.getCell(0).getString());
+            assertTrue(source.getCell(1).isBlank());
+            assertFalse(source.nextRow());
+        }
+    }
+
+    @Test
+    void skipsByteOrderMark() throws Exception {
+        byte[] content = "姓名\r\n张三\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[UTF8_BOM.length + content.length];
+        System.arraycopy(UTF8_BOM, 0, bytes, 0, UTF8_BOM.length);
+        System.arraycopy(content, 0, bytes, UTF8_BOM.length, content.length);
+        try (CsvWorkbookSource workbook = open(bytes, null);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertEquals(StandardCharsets.UTF_8, workbook.getCharset());
+            assertTrue(source.nextRow());
+            assertEquals("姓名", source.getCell(0).getString());
+            assertTrue(source.nextRow());
+            assertEquals("张三", source.getCell(0).getString());
+        }
+    }
+
+    @Test
+    void detectsGbk() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        try (CsvWorkbookSource workbook = open("姓名\r\n张三\r\n".getBytes(gbk), null);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertEquals(gbk, workbook.getCharset());
+            assertTrue(source.nextRow());
+            assertEquals("姓名", source.getCell(0).getString());
+        }
+    }
+
+    @Test
+    void readsFieldsAcrossBufferBoundary() throws Exception {
+        String head = repeat('a', BUFFER_SIZE - 10);
+        //引号字段从缓冲区末尾开始，含转义引号，在下一块中结束
+        String quoted = repeat('b', 5) + "\"\"" + repeat('c', 20);
+        String plain = repeat('d', BUFFER_SIZE + 100);
+        String csv = head + ",\"" + quoted + "\"\r\n" + plain + ",x\r\n";
+        try (CsvWorkbookSource workbook = open(csv.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertTrue(source.nextRow());
+            assertEquals(head, source.getCell(0).getString());
+            assertEquals(repeat('b', 5) + "\"" + repeat('c', 20), source.getCell(1).getString());
+            assertTrue(source.nextRow());
+            assertEquals(plain, source.getCell(0).getString());
+            assertEquals("x", source.getCell(1).getString());
+            assertFalse(source.nextRow());
+        }
+    }
+
+    @Test
+    void skipsUnselectedColumns() throws Exception {
+        try (CsvWorkbookSource workbook = open("a,b,c\r\n1,\"2\n2\",3\r\n".getBytes(StandardCharsets.UTF_8), null);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            source.selectColumns(new int[]{2});
+            assertTrue(source.nextRow());
+            assertTrue(source.getCell(0).isBlank());
+            assertEquals("c", source.getCell(2).getString());
+            assertTrue(source.nextRow());
+            assertEquals(3, source.getCellCount());
+            assertTrue(source.getCell(1).isBlank());
+            assertEquals("3", source.getCell(2).getString());
+            assertFalse(source.nextRow());
+        }
+    }
+
+    private CsvWorkbookSource open(byte[] bytes, Charset charset) throws IOException {
+        File file = tempDir.resolve("data.csv").toFile();
+        Files.write(file.toPath(), bytes);
+        return new CsvWorkbookSource(file, false, ',', charset);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
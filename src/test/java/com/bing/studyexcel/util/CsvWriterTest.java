@@ -0,0 +1,61 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: CSV导出：数值格式、公式前缀及引号
+ */
+class CsvWriterTest {
+
+    static class Entity {
+        @Excel(value = "名称", order = 1)
+        private String name;
+        @Excel(value = "比例", order = 2)
+        private float ratio;
+        @Excel(value = "折扣", order = 3)
+        private Float discount;
+        @Excel(value = "金额", order = 4)
+        private double amount;
+        @Excel(value = "余额", order = 5)
+        private Double balance;
+    }
+
+    @Test
+    void writesFloatsWithoutDoubleWidening() throws Exception {
+        Entity entity = new Entity();
+        entity.name = "张三";
+        entity.ratio = 0.1f;
+        entity.discount = 0.7f;
+        entity.amount = 0.1;
+        entity.balance = 3.0;
+        assertEquals("名称,比例,折扣,金额,余额\r\n张三,0.1,0.7,0.1,3\r\n", write(entity));
+
+        entity.ratio = 2f;
+        entity.discount = null;
+        assertEquals("名称,比例,折扣,金额,余额\r\n张三,2,,0.1,3\r\n", write(entity));
+    }
+
+    @Test
+    void neutralisesFormulasAndQuotesText() throws Exception {
+        Entity entity = new Entity();
+        entity.name = "=1+1";
+        assertTrue(write(entity).contains("\r\n'=1+1,"));
+        entity.name = "a,\"b\"";
+        assertTrue(write(entity).contains("\r\n\"a,\"\"b\"\"\","));
+    }
+
+    private static String write(Entity entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter<Entity> writer = new CsvWriter<>(out, Entity.class, ',', StandardCharsets.UTF_8)) {
+            writer.write(entity);
+        }
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        //去掉字节顺序标记
+        return csv.substring(1);
+    }
+}
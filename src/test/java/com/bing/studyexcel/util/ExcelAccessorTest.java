@@ -0,0 +1,74 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 字段读写器：直接读写字段，不经过getter/setter；基本类型不装箱读写
+ */
+class ExcelAccessorTest {
+
+    static class Entity {
+        private String name;
+        private int count;
+        private long total;
+        private double price;
+        private Integer boxed;
+
+        public String getName() {
+            return name == null ? null : name.toUpperCase();
+        }
+
+        public void setName(String name) {
+            this.name = name == null ? null : name.trim();
+        }
+    }
+
+    @Test
+    void bypassesGetterAndSetter() throws Exception {
+        ExcelAccessor accessor = ExcelAccessor.of(field("name"));
+        Entity entity = new Entity();
+        accessor.set(entity, " abc ");
+        assertEquals(" abc ", entity.name);
+        assertEquals(" abc ", accessor.get(entity));
+    }
+
+    @Test
+    void readsAndWritesPrimitivesWithoutBoxing() throws Exception {
+        Entity entity = new Entity();
+        ExcelAccessor count = ExcelAccessor.of(field("count"));
+        count.setInt(entity, 7);
+        assertEquals(7, entity.count);
+        assertEquals(7.0, count.getDouble(entity));
+        count.set(entity, 8);
+        assertEquals(8, count.get(entity));
+
+        ExcelAccessor total = ExcelAccessor.of(field("total"));
+        total.setLong(entity, 1L << 40);
+        assertEquals(1L << 40, entity.total);
+
+        ExcelAccessor price = ExcelAccessor.of(field("price"));
+        price.setDouble(entity, 1.5);
+        assertEquals(1.5, entity.price);
+        assertEquals(1.5, price.getDouble(entity));
+    }
+
+    @Test
+    void writesBoxedFieldsThroughGenericSetters() throws Exception {
+        Entity entity = new Entity();
+        ExcelAccessor boxed = ExcelAccessor.of(field("boxed"));
+        boxed.setInt(entity, 3);
+        assertEquals(Integer.valueOf(3), entity.boxed);
+        boxed.set(entity, null);
+        assertNull(boxed.get(entity));
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        Field field = Entity.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+}
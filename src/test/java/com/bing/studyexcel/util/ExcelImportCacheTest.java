@@ -0,0 +1,195 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 导入结果缓存：按内容摘要命中、并发去重、有效期及最久未使用淘汰、返回副本
+ */
+class ExcelImportCacheTest {
+
+    static class Entity {
+        @Excel("名称")
+        private String name;
+        @Excel("日期")
+        private Date date;
+        private Calendar calendar;
+    }
+
+    static class Converted {
+        @Excel(value = "名称", converter = UpperCase.class)
+        private String name;
+    }
+
+    public static class UpperCase implements ExcelConverter<String> {
+        @Override
+        public String convert(ExcelCellValue cell) {
+            return cell.getString().toUpperCase();
+        }
+    }
+
+    @Test
+    void hashesByContent() throws Exception {
+        byte[] content = "名称\n张三\n".getBytes(StandardCharsets.UTF_8);
+        String hash = ExcelImportCache.hash(new MockMultipartFile("file", "a.csv", null, content));
+        assertEquals(64, hash.length());
+        //文件名不影响摘要，内容不同摘要不同
+        assertEquals(hash, ExcelImportCache.hash(new MockMultipartFile("file", "b.csv", null, content.clone())));
+        assertFalse(hash.equals(ExcelImportCache.hash(new MockMultipartFile("file", "a.csv", null,
+                "名称\n李四\n".getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() throws Exception {
+        ExcelImportCache cache = new ExcelImportCache(8, 1000, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> cache.get("k", Entity.class, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+                    return Arrays.asList("a", "b");
+                }, List::size, ArrayList::new)));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            //等待其余请求进入缓存后再完成解析
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<String>> future : futures) {
+                assertEquals(Arrays.asList("a", "b"), future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void failedLoadIsNotCached() throws Exception {
+        ExcelImportCache cache = new ExcelImportCache(8, 1000, 60_000);
+        assertThrows(IllegalStateException.class, () -> cache.<List<String>>get("k", Entity.class, () -> {
+            throw new IllegalStateException("解析失败");
+        }, List::size, ArrayList::new));
+        assertEquals(0, cache.size());
+        assertEquals(1, load(cache, "k", new AtomicInteger()).size());
+    }
+
+    @Test
+    void expiredResultIsReloaded() throws Exception {
+        ExcelImportCache cache = new ExcelImportCache(8, 1000, 50);
+        AtomicInteger loads = new AtomicInteger();
+        load(cache, "k", loads);
+        load(cache, "k", loads);
+        assertEquals(1, loads.get());
+        Thread.sleep(100);
+        load(cache, "k", loads);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        ExcelImportCache cache = new ExcelImportCache(2, 1000, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        load(cache, "a", loads);
+        load(cache, "b", loads);
+        //访问a后b成为最久未使用的结果
+        load(cache, "a", loads);
+        load(cache, "c", loads);
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+        load(cache, "a", loads);
+        assertEquals(3, loads.get());
+        load(cache, "b", loads);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void skipsResultsOverRowLimit() throws Exception {
+        ExcelImportCache cache = new ExcelImportCache(8, 1, 60_000);
+        List<String> rows = cache.get("k", Entity.class, () -> Arrays.asList("a", "b"), List::size, ArrayList::new);
+        assertEquals(2, rows.size());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void returnsCopiesOfCachedEntities() throws Exception {
+        Entity entity = new Entity();
+        entity.name = "张三";
+        entity.date = new Date(0);
+        entity.calendar = Calendar.getInstance();
+        ExcelClassMeta meta = ExcelClassMeta.of(Entity.class);
+        assertTrue(meta.isCopyable());
+        Entity copy = (Entity) meta.copy(entity);
+        assertEquals("张三", copy.name);
+        assertEquals(entity.date, copy.date);
+        assertFalse(entity.date == copy.date);
+        //未标注@Excel的字段不复制
+        assertNull(copy.calendar);
+
+        ExcelImportCache cache = new ExcelImportCache(8, 1000, 60_000);
+        ExcelImportCache.Copier<List<Entity>> copier = list -> {
+            List<Entity> copies = new ArrayList<>();
+            for (Entity e : list) {
+                copies.add((Entity) meta.copy(e));
+            }
+            return copies;
+        };
+        List<Entity> first = cache.get("k", Entity.class, () -> Arrays.asList(entity), List::size, copier);
+        first.get(0).name = "李四";
+        first.get(0).date.setTime(1000);
+        List<Entity> second = cache.get("k", Entity.class, () -> {
+            throw new IllegalStateException("不应重新解析");
+        }, List::size, copier);
+        assertEquals("张三", second.get(0).name);
+        assertEquals(new Date(0), second.get(0).date);
+    }
+
+    @Test
+    void skipsEntitiesWithCustomConverter() throws Exception {
+        assertFalse(ExcelClassMeta.of(Converted.class).isCopyable());
+        byte[] content = "名称\nabc\n".getBytes(StandardCharsets.UTF_8);
+        ExcelImportCache cache = new ExcelImportCache(8, 1000, 60_000);
+        ExcelUtil.setImportCache(cache);
+        try {
+            List<Converted> first = ExcelUtil.importCsv(new MockMultipartFile("file", "a.csv", null, content),
+                    Converted.class, ',', StandardCharsets.UTF_8);
+            assertEquals("ABC", first.get(0).name);
+            assertEquals(0, cache.size());
+
+            List<Entity> entities = ExcelUtil.importCsv(new MockMultipartFile("file", "a.csv", null, content),
+                    Entity.class, ',', StandardCharsets.UTF_8);
+            assertEquals("abc", entities.get(0).name);
+            assertEquals(1, cache.size());
+        } finally {
+            ExcelUtil.setImportCache(null);
+        }
+    }
+
+    private static List<String> load(ExcelImportCache cache, String key, AtomicInteger loads) throws Exception {
+        return cache.get(key, Entity.class, () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(key);
+        }, List::size, ArrayList::new);
+    }
+}
@@ -0,0 +1,130 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 嵌套对象及继承字段展开为列：列顺序、导入时创建嵌套对象、导出空的嵌套对象及不能展开的字段
+ */
+class ExcelNestedTest {
+
+    static class Place {
+        @Excel(value = "城市", order = 3)
+        String city;
+    }
+
+    static class Address extends Place {
+        @Excel(value = "街道", order = 4)
+        private String street;
+    }
+
+    static class Base {
+        @Excel(value = "编号", order = 1, required = true)
+        Integer id;
+    }
+
+    static class Person extends Base {
+        @Excel(value = "姓名", order = 2)
+        private String name;
+        @ExcelNested(prefix = "地址-")
+        private Address address;
+    }
+
+    static class Company {
+        @ExcelNested(prefix = "总部-")
+        private Address head;
+        @ExcelNested(prefix = "分部-")
+        private Address branch;
+    }
+
+    static class Cycle {
+        @Excel("名称")
+        private String name;
+        @ExcelNested
+        private Cycle parent;
+    }
+
+    static class Duplicate {
+        @Excel("城市")
+        private String city;
+        @ExcelNested
+        private Address address;
+    }
+
+    static class Collection {
+        @Excel("名称")
+        private String name;
+        @ExcelNested
+        private List<Address> addresses;
+    }
+
+    @Test
+    void flattensInheritedAndNestedFields() throws Exception {
+        assertEquals(Arrays.asList("编号", "姓名", "地址-城市", "地址-街道"), names(ExcelClassMeta.of(Person.class).getFields()));
+        assertEquals(Arrays.asList("总部-城市", "总部-街道", "分部-城市", "分部-街道"),
+                names(ExcelClassMeta.of(Company.class).getFields()));
+        assertEquals(4, ExcelUtil.getColumnCount(Person.class));
+    }
+
+    @Test
+    void importCreatesNestedObjects() throws Exception {
+        String csv = "编号,姓名,地址-城市,地址-街道\n1,张三,北京,长安街\n2,李四,,\n";
+        List<Person> list = ExcelUtil.importCsv(file(csv), Person.class, ',', StandardCharsets.UTF_8);
+        assertEquals(2, list.size());
+        assertEquals(1, (int) list.get(0).id);
+        assertEquals("北京", list.get(0).address.city);
+        assertEquals("长安街", list.get(0).address.street);
+        //嵌套对象的列都为空时不创建
+        assertNull(list.get(1).address);
+    }
+
+    @Test
+    void exportsNullNestedObjectAsEmptyColumns() throws Exception {
+        Person person = new Person();
+        person.id = 1;
+        person.name = "张三";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter<Person> writer = new CsvWriter<>(out, Person.class, ',', StandardCharsets.UTF_8)) {
+            writer.write(person);
+        }
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(csv.endsWith("地址-街道\r\n1,张三,,\r\n"));
+    }
+
+    @Test
+    void copiesNestedObjects() throws Exception {
+        Person person = new Person();
+        person.address = new Address();
+        person.address.city = "北京";
+        Person copy = (Person) ExcelClassMeta.of(Person.class).copy(person);
+        assertEquals("北京", copy.address.city);
+        assertNotSame(person.address, copy.address);
+    }
+
+    @Test
+    void rejectsFieldsThatCannotBeFlattened() {
+        assertThrows(Exception.class, () -> ExcelClassMeta.of(Cycle.class));
+        assertThrows(Exception.class, () -> ExcelClassMeta.of(Duplicate.class));
+        assertThrows(Exception.class, () -> ExcelClassMeta.of(Collection.class));
+    }
+
+    private static List<String> names(List<ExcelField> fields) {
+        List<String> names = new ArrayList<>();
+        for (ExcelField field : fields) {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    private static MockMultipartFile file(String csv) {
+        return new MockMultipartFile("file", "data.csv", null, csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
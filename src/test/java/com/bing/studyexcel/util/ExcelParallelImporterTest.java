@@ -0,0 +1,146 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 并行导入：流水线导入的有序、无序结果，多sheet并行导入的合并顺序及失败处理
+ */
+class ExcelParallelImporterTest {
+
+    static class Entity {
+        @Excel(value = "编号", required = true)
+        private Integer index;
+        @Excel("名称")
+        private String name;
+    }
+
+    /**
+     * 由多个CSV文件组成的工作簿，每个文件为一个sheet
+     */
+    private static final class CsvSheets implements ExcelWorkbookSource {
+
+        private final List<CsvWorkbookSource> sheets = new ArrayList<>();
+
+        @Override
+        public int getSheetCount() {
+            return sheets.size();
+        }
+
+        @Override
+        public ExcelRowSource openSheet(int sheetIndex) throws Exception {
+            return sheets.get(sheetIndex).openSheet(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (CsvWorkbookSource sheet : sheets) {
+                sheet.close();
+            }
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void pipelinedImportKeepsRowOrder() throws Exception {
+        ExecutorService executor = ExcelParallelImporter.newExecutor(4, 2, "test-import-");
+        try (CsvWorkbookSource workbook = csv(rows(0, 5000))) {
+            List<Entity> list = ExcelParallelImporter.importRows(workbook.openSheet(0), Entity.class, executor, true);
+            assertEquals(5000, list.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(i, (int) list.get(i).index);
+                assertEquals("员工" + i, list.get(i).name);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void unorderedPipelinedImportReturnsAllRows() throws Exception {
+        ExecutorService executor = ExcelParallelImporter.newExecutor(4, 2, "test-import-");
+        try (CsvWorkbookSource workbook = csv(rows(0, 5000))) {
+            List<Entity> list = ExcelParallelImporter.importRows(workbook.openSheet(0), Entity.class, executor, false);
+            assertEquals(5000, list.size());
+            list.sort(Comparator.comparing(entity -> entity.index));
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(i, (int) list.get(i).index);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void pipelinedImportFailsOnInvalidRow() throws Exception {
+        ExecutorService executor = ExcelParallelImporter.newExecutor(4, 2, "test-import-");
+        try (CsvWorkbookSource workbook = csv(rows(0, 1000) + ",缺少编号\n" + rows(1001, 2000).substring("编号,名称\n".length()))) {
+            assertThrows(Exception.class,
+                    () -> ExcelParallelImporter.importRows(workbook.openSheet(0), Entity.class, executor, true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void importsSheetsInParallelAndMergesInSheetOrder() throws Exception {
+        ExecutorService executor = ExcelParallelImporter.newExecutor(3, 1, "test-import-");
+        try (CsvSheets workbook = new CsvSheets()) {
+            workbook.sheets.add(csv(rows(0, 3000)));
+            workbook.sheets.add(csv(rows(3000, 3010)));
+            workbook.sheets.add(csv(rows(3010, 4000)));
+            ExcelImportResult<Entity> result = ExcelParallelImporter.importSheets(workbook, Entity.class, executor);
+            assertEquals(4000, result.getData().size());
+            for (int i = 0; i < 4000; i++) {
+                assertEquals(i, (int) result.getData().get(i).index);
+            }
+            assertEquals(3, result.getSheetReports().size());
+            assertEquals(3000, result.getSheetReports().get(0).getRowCount());
+            assertEquals(10, result.getSheetReports().get(1).getRowCount());
+            assertEquals(990, result.getSheetReports().get(2).getRowCount());
+            assertEquals(2, result.getSheetReports().get(2).getSheetIndex());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedSheetFailsParallelImport() throws Exception {
+        ExecutorService executor = ExcelParallelImporter.newExecutor(2, 1, "test-import-");
+        try (CsvSheets workbook = new CsvSheets()) {
+            workbook.sheets.add(csv(rows(0, 2000)));
+            workbook.sheets.add(csv("编号,名称\n1,张三\n,缺少编号\n"));
+            assertThrows(Exception.class, () -> ExcelParallelImporter.importSheets(workbook, Entity.class, executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String rows(int from, int to) {
+        StringBuilder csv = new StringBuilder("编号,名称\n");
+        for (int i = from; i < to; i++) {
+            csv.append(i).append(",员工").append(i).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private CsvWorkbookSource csv(String content) throws IOException {
+        File file = Files.createTempFile(tempDir, "import-", ".csv").toFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new CsvWorkbookSource(file, false, ',', StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bing.studyexcel.util;
+
+import com.bing.studyexcel.pojo.User;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 工作簿写入：单页行数上限及分页
+ */
+class ExcelSheetWriterTest {
+
+    @Test
+    void limitsSheetSizeToFormatMaxRows() {
+        //表头占一行
+        assertEquals(65535, ExcelSheetWriter.limitSheetSize(Integer.MAX_VALUE, SpreadsheetVersion.EXCEL97));
+        assertEquals(1048575, ExcelSheetWriter.limitSheetSize(Integer.MAX_VALUE, SpreadsheetVersion.EXCEL2007));
+        assertEquals(100, ExcelSheetWriter.limitSheetSize(100, SpreadsheetVersion.EXCEL97));
+    }
+
+    @Test
+    void rollsOverAtXlsMaxRows() throws Exception {
+        Workbook workbook = new HSSFWorkbook();
+        ExcelSheetWriter<User> writer = new ExcelSheetWriter<>(workbook, "员工", Integer.MAX_VALUE, User.class);
+        User user = new User();
+        user.setUserName("员工");
+        user.setBirthday(new Date());
+        for (int i = 0; i < 65535; i++) {
+            writer.write(user);
+        }
+        //恰好写满65536行（含表头）
+        assertEquals(1, workbook.getNumberOfSheets());
+        assertEquals("员工", workbook.getSheetName(0));
+        assertEquals(65535, workbook.getSheetAt(0).getLastRowNum());
+        writer.write(user);
+        assertEquals(2, workbook.getNumberOfSheets());
+        assertEquals("员工0", workbook.getSheetName(0));
+        assertEquals("员工1", workbook.getSheetName(1));
+        assertEquals(1, workbook.getSheetAt(1).getLastRowNum());
+        assertEquals(65536, writer.getRowCount());
+    }
+
+    @Test
+    void keepsRolloverSheetNamesUnique() {
+        Set<String> used = new HashSet<>();
+        String title = "abcdefghijklmnopqrstuvwxyzABC11";
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            String name = ExcelSheetWriter.sheetName(title, i, used);
+            assertTrue(name.length() <= 31, name);
+            assertTrue(names.add(name.toLowerCase()), name);
+        }
+        //截短后第1页与第11页同名时，第11页继续截短
+        Set<String> clash = new HashSet<>();
+        assertEquals("abcdefghijklmnopqrstuvwxyzABC11", ExcelSheetWriter.sheetName(title, 1, clash));
+        assertEquals("abcdefghijklmnopqrstuvwxyzAB11", ExcelSheetWriter.sheetName(title, 11, clash));
+    }
+}
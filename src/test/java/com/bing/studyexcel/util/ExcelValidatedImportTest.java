@@ -0,0 +1,78 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 校验导入：有误的行记录错误（行号、列、表头）后继续解析，错误数量超过上限时停止导入
+ */
+class ExcelValidatedImportTest {
+
+    static class Entity {
+        @Excel(value = "编号", order = 1, required = true)
+        private Integer id;
+        @Excel(value = "年龄", order = 2)
+        private Integer age;
+    }
+
+    private static final String CSV = "编号,年龄\n"
+            + "1,20\n"
+            + ",21\n"
+            + "3,abc\n"
+            + "4,22\n";
+
+    @Test
+    void collectsRowErrorsAndContinues() throws Exception {
+        ExcelImportResult<Entity> result = ExcelUtil.importExcelValidated(file(CSV), Entity.class, 10);
+        assertEquals(2, result.getData().size());
+        assertEquals(1, (int) result.getData().get(0).id);
+        assertEquals(4, (int) result.getData().get(1).id);
+        assertFalse(result.isValid());
+        assertFalse(result.isTruncated());
+        assertEquals(2, result.getErrors().size());
+
+        ExcelRowError missing = result.getErrors().get(0);
+        //行号与Excel中显示的一致，表头为第1行
+        assertEquals(3, missing.getRowNum());
+        assertEquals(0, missing.getSheetIndex());
+        assertEquals(0, missing.getColumn());
+        assertEquals("编号", missing.getHeader());
+
+        ExcelRowError invalid = result.getErrors().get(1);
+        assertEquals(4, invalid.getRowNum());
+        assertEquals(1, invalid.getColumn());
+        assertEquals("年龄", invalid.getHeader());
+    }
+
+    @Test
+    void stopsWhenErrorsExceedLimit() throws Exception {
+        ExcelImportResult<Entity> result = ExcelUtil.importExcelValidated(file(CSV), Entity.class, 1);
+        assertTrue(result.isTruncated());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(3, result.getErrors().get(0).getRowNum());
+        //超过上限后不再解析后续的行
+        assertEquals(1, result.getData().size());
+    }
+
+    @Test
+    void blankOptionalCellIsNotAnError() throws Exception {
+        ExcelImportResult<Entity> result = ExcelUtil.importExcelValidated(file("编号,年龄\n1,20\n2,\n"), Entity.class, 1);
+        assertTrue(result.isValid());
+        assertEquals(2, result.getData().size());
+        assertNull(result.getData().get(1).age);
+    }
+
+    @Test
+    void headerErrorsStillFail() {
+        assertThrows(Exception.class, () -> ExcelUtil.importExcelValidated(file("年龄\n20\n"), Entity.class, 10));
+        assertThrows(Exception.class, () -> ExcelUtil.importExcelValidated(file(CSV), Entity.class, 0));
+    }
+
+    private static MockMultipartFile file(String csv) {
+        return new MockMultipartFile("file", "data.csv", null, csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,158 @@
+package com.bing.studyexcel.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: xlsx流式行数据源：各类型单元格、稀疏行及列投影
+ */
+class XlsxStreamRowSourceTest {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PKG_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final String SHEET = "<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>"
+            + "<row r=\"1\">"
+            + "<c r=\"A1\" t=\"s\"><v>0</v></c>"
+            + "<c r=\"B1\" t=\"inlineStr\"><is><r><t>内联</t></r><r><t>文本</t></r></is></c>"
+            + "<c r=\"C1\" t=\"b\"><v>1</v></c>"
+            + "<c r=\"D1\" t=\"e\"><v>#DIV/0!</v></c>"
+            + "<c r=\"E1\" t=\"d\"><v>2019-10-30T14:55:00</v></c>"
+            + "<c r=\"F1\" s=\"1\"><v>43768</v></c>"
+            + "<c r=\"G1\" t=\"x\"><v>abc</v></c>"
+            + "<c r=\"H1\"><v>12.5</v></c>"
+            + "</row>"
+            //第2行缺失，第3行只有C、F两列
+            + "<row r=\"3\"><c r=\"C3\" t=\"s\"><v>1</v></c><c r=\"F3\"><v>7</v></c></row>"
+            + "<row r=\"4\"><c r=\"A4\" t=\"d\"><v>2019-10-30</v></c><c r=\"B4\" t=\"d\"><v>不是日期</v></c></row>"
+            + "</sheetData></worksheet>";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsEachCellType() throws Exception {
+        try (XlsxStreamWorkbookSource workbook = new XlsxStreamWorkbookSource(writeXlsx(), false);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertTrue(source.nextRow());
+            assertEquals(0, source.getRowNum());
+            assertEquals(8, source.getCellCount());
+            assertEquals("共享", source.getCell(0).getString());
+            assertEquals("内联文本", source.getCell(1).getString());
+            assertEquals(ExcelCellValue.TYPE_BOOLEAN, source.getCell(2).getType());
+            assertTrue(source.getCell(2).getBoolean());
+            //错误值按空单元格处理
+            assertTrue(source.getCell(3).isBlank());
+            assertEquals(ExcelCellValue.TYPE_DATE, source.getCell(4).getType());
+            assertEquals(date(LocalDateTime.of(2019, 10, 30, 14, 55)), source.getCell(4).getDate());
+            assertEquals(ExcelCellValue.TYPE_DATE, source.getCell(5).getType());
+            assertEquals(date(LocalDateTime.of(2019, 10, 30, 0, 0)), source.getCell(5).getDate());
+            //未知类型按文本读取
+            assertEquals("abc", source.getCell(6).getString());
+            assertEquals(12.5, source.getCell(7).getDouble());
+        }
+    }
+
+    @Test
+    void readsSparseRows() throws Exception {
+        try (XlsxStreamWorkbookSource workbook = new XlsxStreamWorkbookSource(writeXlsx(), false);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            assertTrue(source.nextRow());
+            assertTrue(source.nextRow());
+            assertEquals(2, source.getRowNum());
+            assertEquals(6, source.getCellCount());
+            assertTrue(source.getCell(0).isBlank());
+            assertTrue(source.getCell(1).isBlank());
+            assertEquals("第二", source.getCell(2).getString());
+            assertTrue(source.getCell(3).isBlank());
+            assertTrue(source.getCell(4).isBlank());
+            assertEquals(7, source.getCell(5).getInt());
+            assertTrue(source.nextRow());
+            assertEquals(date(LocalDateTime.of(2019, 10, 30, 0, 0)), source.getCell(0).getDate());
+            assertEquals("不是日期", source.getCell(1).getString());
+            assertFalse(source.nextRow());
+        }
+    }
+
+    @Test
+    void skipsUnselectedColumns() throws Exception {
+        try (XlsxStreamWorkbookSource workbook = new XlsxStreamWorkbookSource(writeXlsx(), false);
+             ExcelRowSource source = workbook.openSheet(0)) {
+            source.selectColumns(new int[]{2, 5});
+            assertTrue(source.nextRow());
+            assertTrue(source.getCell(0).isBlank());
+            assertTrue(source.getCell(1).isBlank());
+            assertTrue(source.getCell(2).getBoolean());
+            assertEquals(ExcelCellValue.TYPE_DATE, source.getCell(5).getType());
+            assertTrue(source.getCell(7).isBlank());
+            assertTrue(source.nextRow());
+            assertEquals("第二", source.getCell(2).getString());
+            assertEquals(7, source.getCell(5).getInt());
+            assertTrue(source.nextRow());
+            //只有A、B两列的行，需要的列均为空
+            assertTrue(source.getCell(2).isBlank());
+            assertTrue(source.getCell(5).isBlank());
+            assertFalse(source.nextRow());
+        }
+    }
+
+    private static Date date(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * 生成只含一个sheet的最小xlsx，样式1为内置日期格式
+     */
+    private File writeXlsx() throws IOException {
+        File file = tempDir.resolve("cells.xlsx").toFile();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            entry(zip, "[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                    + "<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>"
+                    + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+                    + "</Types>");
+            entry(zip, "_rels/.rels", "<Relationships xmlns=\"" + PKG_REL_NS + "\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            entry(zip, "xl/workbook.xml", "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\">"
+                    + "<sheets><sheet name=\"数据\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+            entry(zip, "xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"" + PKG_REL_NS + "\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                    + "<Relationship Id=\"rId2\" Type=\"" + REL_NS + "/sharedStrings\" Target=\"sharedStrings.xml\"/>"
+                    + "<Relationship Id=\"rId3\" Type=\"" + REL_NS + "/styles\" Target=\"styles.xml\"/>"
+                    + "</Relationships>");
+            entry(zip, "xl/sharedStrings.xml", "<sst xmlns=\"" + MAIN_NS + "\" count=\"2\" uniqueCount=\"2\">"
+                    + "<si><t>共享</t></si><si><t>第二</t></si></sst>");
+            entry(zip, "xl/styles.xml", "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+                    + "<fonts count=\"1\"><font/></fonts><fills count=\"1\"><fill/></fills><borders count=\"1\"><border/></borders>"
+                    + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\"/></cellStyleXfs>"
+                    + "<cellXfs count=\"2\"><xf numFmtId=\"0\" xfId=\"0\"/><xf numFmtId=\"14\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                    + "</styleSheet>");
+            entry(zip, "xl/worksheets/sheet1.xml", SHEET);
+        }
+        return file;
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" + content).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
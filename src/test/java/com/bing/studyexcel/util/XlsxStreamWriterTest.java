@@ -0,0 +1,108 @@
+package com.bing.studyexcel.util;
+
+import com.bing.studyexcel.pojo.User;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Description: 直接写出xlsx：用POI重新打开校验内容、分页及未完成时的中止
+ */
+class XlsxStreamWriterTest {
+
+    @Test
+    void roundTripsThroughPoi() throws Exception {
+        Date birthday = new Date(1572418500000L);
+        byte[] bytes = write("员工", 100, 2, birthday);
+        Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes));
+        assertEquals(1, workbook.getNumberOfSheets());
+        Sheet sheet = workbook.getSheetAt(0);
+        assertEquals("员工", sheet.getSheetName());
+        assertEquals(2, sheet.getLastRowNum());
+        Row header = sheet.getRow(0);
+        assertEquals("姓名", header.getCell(0).getStringCellValue());
+        assertEquals("年龄", header.getCell(1).getStringCellValue());
+        assertEquals("生日", header.getCell(2).getStringCellValue());
+        assertEquals("财富", header.getCell(3).getStringCellValue());
+        Row row = sheet.getRow(1);
+        //需要转义的字符
+        assertEquals("<员工&0>", row.getCell(0).getStringCellValue());
+        assertEquals(Cell.CELL_TYPE_NUMERIC, row.getCell(1).getCellType());
+        assertEquals(20.0, row.getCell(1).getNumericCellValue());
+        assertTrue(DateUtil.isCellDateFormatted(row.getCell(2)));
+        assertEquals(birthday, row.getCell(2).getDateCellValue());
+        assertEquals(0.5, row.getCell(3).getNumericCellValue());
+        //空值不写单元格
+        assertNull(sheet.getRow(2).getCell(3));
+    }
+
+    @Test
+    void rollsOverAfterSheetSizeRows() throws Exception {
+        Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(write("员工", 2, 2, new Date())));
+        //恰好写满一页时不分页
+        assertEquals(1, workbook.getNumberOfSheets());
+        assertEquals("员工", workbook.getSheetName(0));
+        Workbook rolled = new XSSFWorkbook(new ByteArrayInputStream(write("员工", 2, 5, new Date())));
+        assertEquals(3, rolled.getNumberOfSheets());
+        assertEquals("员工0", rolled.getSheetName(0));
+        assertEquals("员工1", rolled.getSheetName(1));
+        assertEquals("员工2", rolled.getSheetName(2));
+        assertEquals(2, rolled.getSheetAt(0).getLastRowNum());
+        assertEquals(2, rolled.getSheetAt(1).getLastRowNum());
+        assertEquals(1, rolled.getSheetAt(2).getLastRowNum());
+        assertEquals("<员工&4>", rolled.getSheetAt(2).getRow(1).getCell(0).getStringCellValue());
+    }
+
+    @Test
+    void truncatesRolloverSheetNames() throws Exception {
+        String title = "abcdefghijklmnopqrstuvwxyz01234";
+        Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(write(title, 1, 2, new Date())));
+        assertEquals(title.substring(0, 30) + "0", workbook.getSheetName(0));
+        assertEquals(title.substring(0, 30) + "1", workbook.getSheetName(1));
+    }
+
+    @Test
+    void abortsWithoutFinish() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxStreamWriter<User> writer = new XlsxStreamWriter<>(out, "员工", 100, User.class)) {
+            writer.write(user(0, new Date()));
+        }
+        //未写出压缩包目录，不能作为xlsx打开
+        assertThrows(Exception.class, () -> new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    private static byte[] write(String title, int sheetSize, int rows, Date birthday) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxStreamWriter<User> writer = new XlsxStreamWriter<>(out, title, sheetSize, User.class)) {
+            for (int i = 0; i < rows; i++) {
+                User user = user(i, birthday);
+                if (i == 1) {
+                    user.setMoney(null);
+                }
+                writer.write(user);
+            }
+            writer.finish();
+            assertEquals(rows, writer.getRowCount());
+        }
+        return out.toByteArray();
+    }
+
+    private static User user(int i, Date birthday) {
+        User user = new User();
+        user.setUserName("<员工&" + i + ">");
+        user.setAge(20 + i);
+        user.setBirthday(birthday);
+        user.setMoney(i + 0.5);
+        return user;
+    }
+}